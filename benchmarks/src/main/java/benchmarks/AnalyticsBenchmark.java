@@ -0,0 +1,71 @@
+package benchmarks;
+
+import graph.FrozenGraph;
+import graph.Graph;
+import graph.analytics.Components;
+import graph.analytics.Degrees;
+import graph.analytics.PageRank;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole-graph analytics over a frozen random graph: 20 PageRank iterations at
+ * several parallelism levels, the out-strength distribution, and connected
+ * components.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "1", "4" })
+    public int parallelism;
+
+    private FrozenGraph<String> graph;
+    private PageRank pageRank;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Graph<String> edges = Fixtures.emptyGraph("edges");
+        Fixtures.randomEdges(edges, Fixtures.labels(size), 4, new Random(Fixtures.SEED));
+        graph = edges.freeze();
+        pageRank = new PageRank(0.85, 0, 20, parallelism);
+    }
+
+    @Benchmark
+    public Map<String, Double> pageRank() {
+        return pageRank.rank(graph);
+    }
+
+    @Benchmark
+    public SortedMap<Long, Integer> outStrengthDistribution() {
+        return Degrees.outStrengthDistribution(graph);
+    }
+
+    @Benchmark
+    public int components() {
+        return Components.count(graph);
+    }
+}
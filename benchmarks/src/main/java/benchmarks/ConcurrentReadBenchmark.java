@@ -0,0 +1,134 @@
+package benchmarks;
+
+import graph.Graph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Read throughput of one ConcurrentGraph shared by every benchmark thread, as
+ * readers are added. The groups read1 to read8 run that many readers; compare
+ * their total ops/s to see how reads scale. read4Writer adds one thread that
+ * keeps incrementing existing edges, so readers contend with a writer as they
+ * would behind a shared poet that is still being appended to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentReadBenchmark {
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "8" })
+    public int degree;
+
+    private Graph<String> graph;
+    private String[] labels;
+    // edges that exist, as source and target indexes, for the writer to increment
+    private int[] edgeSources;
+    private int[] edgeTargets;
+
+    @Setup(Level.Trial)
+    public void build() {
+        labels = Fixtures.labels(size);
+        graph = Fixtures.emptyGraph("concurrent");
+        Fixtures.randomEdges(graph, labels, degree, new Random(Fixtures.SEED));
+        List<int[]> edges = new ArrayList<>();
+        for (int s = 0; s < size; s += 16) {
+            for (String target : graph.targets(labels[s]).keySet()) {
+                edges.add(new int[] { s, Integer.parseInt(target.substring(1)) });
+            }
+        }
+        edgeSources = new int[edges.size()];
+        edgeTargets = new int[edges.size()];
+        for (int i = 0; i < edges.size(); i++) {
+            edgeSources[i] = edges.get(i)[0];
+            edgeTargets[i] = edges.get(i)[1];
+        }
+    }
+
+    // Each thread draws its own vertices, from its own seed.
+    @State(Scope.Thread)
+    public static class Cursor {
+        private static final AtomicInteger THREADS = new AtomicInteger();
+        final Random random = new Random(Fixtures.SEED + THREADS.incrementAndGet());
+    }
+
+    // Visits the targets of one random vertex and sums their weights.
+    private int read(Cursor cursor, Blackhole blackhole) {
+        int sum = 0;
+        for (Map.Entry<String, Integer> edge : graph.targets(labels[cursor.random.nextInt(size)]).entrySet()) {
+            blackhole.consume(edge.getKey());
+            sum += edge.getValue();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Group("read1")
+    @GroupThreads(1)
+    public int read1(Cursor cursor, Blackhole blackhole) {
+        return read(cursor, blackhole);
+    }
+
+    @Benchmark
+    @Group("read2")
+    @GroupThreads(2)
+    public int read2(Cursor cursor, Blackhole blackhole) {
+        return read(cursor, blackhole);
+    }
+
+    @Benchmark
+    @Group("read4")
+    @GroupThreads(4)
+    public int read4(Cursor cursor, Blackhole blackhole) {
+        return read(cursor, blackhole);
+    }
+
+    @Benchmark
+    @Group("read8")
+    @GroupThreads(8)
+    public int read8(Cursor cursor, Blackhole blackhole) {
+        return read(cursor, blackhole);
+    }
+
+    @Benchmark
+    @Group("read4Writer")
+    @GroupThreads(4)
+    public int reader(Cursor cursor, Blackhole blackhole) {
+        return read(cursor, blackhole);
+    }
+
+    // Increments only edges that already exist, so the graph keeps its shape.
+    @Benchmark
+    @Group("read4Writer")
+    @GroupThreads(1)
+    public int writer(Cursor cursor) {
+        int edge = cursor.random.nextInt(edgeSources.length);
+        return graph.increment(labels[edgeSources[edge]], labels[edgeTargets[edge]], 1);
+    }
+}
@@ -0,0 +1,110 @@
+package benchmarks;
+
+import graph.CompactGraph;
+import graph.ConcreteEdgesGraph;
+import graph.ConcreteVerticesGraph;
+import graph.ConcurrentGraph;
+import graph.Graph;
+import graph.OffHeapGraph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Graphs and corpora shared by the benchmarks. Everything is generated from a
+ * fixed seed, so every run and every implementation sees the same data.
+ */
+final class Fixtures {
+
+    static final long SEED = 20240601L;
+
+    private Fixtures() {
+    }
+
+    /** Returns an empty graph of the named implementation. */
+    static Graph<String> emptyGraph(String implementation) {
+        switch (implementation) {
+        case "edges":
+            return new ConcreteEdgesGraph<>();
+        case "vertices":
+            return new ConcreteVerticesGraph<>();
+        case "compact":
+            return new CompactGraph<>();
+        case "concurrent":
+            return new ConcurrentGraph<>();
+        case "offheap":
+            return new OffHeapGraph<>();
+        default:
+            throw new IllegalArgumentException("Unknown graph implementation " + implementation);
+        }
+    }
+
+    /**
+     * Frees the off-heap memory of a graph from emptyGraph(), so it does not
+     * pile up across trials and skew the gc and allocation profiles.
+     */
+    static void release(Graph<String> graph) {
+        if (graph instanceof OffHeapGraph) ((OffHeapGraph<String>) graph).close();
+    }
+
+    static String[] labels(int size) {
+        String[] labels = new String[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = "w" + i;
+        }
+        return labels;
+    }
+
+    /** Fills graph with size vertices and about size * degree random weighted edges. */
+    static void randomEdges(Graph<String> graph, String[] labels, int degree, Random random) {
+        graph.addAll(Arrays.asList(labels));
+        long edges = (long) labels.length * degree;
+        for (long i = 0; i < edges; i++) {
+            graph.set(labels[random.nextInt(labels.length)], labels[random.nextInt(labels.length)],
+                    1 + random.nextInt(100));
+        }
+    }
+
+    /**
+     * Picks a word index with a Zipf-like distribution, so a few words are very
+     * frequent and most are rare, as in natural text.
+     */
+    static int zipf(int vocabulary, Random random) {
+        return (int) Math.min(vocabulary - 1, Math.floor(Math.pow(vocabulary + 1, random.nextDouble())) - 1);
+    }
+
+    /** Writes a corpus of the given number of words, twelve words to a line. */
+    static Path corpus(int words, int vocabulary) throws IOException {
+        Path file = Files.createTempFile("corpus-" + words + "-" + vocabulary, ".txt");
+        file.toFile().deleteOnExit();
+        Random random = new Random(SEED);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < words; i++) {
+                out.write("w");
+                out.write(Integer.toString(zipf(vocabulary, random)));
+                out.write(i % 12 == 11 ? '\n' : ' ');
+            }
+        }
+        return file;
+    }
+
+    /** Returns poem inputs of the given number of words drawn like the corpus. */
+    static String[] inputs(int count, int words, int vocabulary) {
+        Random random = new Random(SEED + 1);
+        String[] inputs = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder line = new StringBuilder();
+            for (int w = 0; w < words; w++) {
+                if (w > 0) line.append(' ');
+                line.append(w % 3 == 0 ? "W" : "w").append(zipf(vocabulary, random));
+            }
+            inputs[i] = line.toString();
+        }
+        return inputs;
+    }
+}
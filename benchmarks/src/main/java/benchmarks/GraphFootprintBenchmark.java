@@ -0,0 +1,92 @@
+package benchmarks;
+
+import graph.Graph;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Heap a graph keeps per edge once it is built and compacted, reported as the
+ * bytesPerEdge counter next to the build time. The labels are made before the
+ * graph, so they are not counted; what is left is the graph's own rep. The
+ * gc profiler's numbers are allocation, not retention, so this measures the
+ * used heap after a full GC before and after the build instead. JMH sums an
+ * EVENTS counter over the measured iterations, so there is only one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 1)
+@Fork(1)
+public class GraphFootprintBenchmark {
+
+    @Param({ "edges", "vertices", "compact" })
+    public String implementation;
+
+    @Param({ "100000" })
+    public int size;
+
+    @Param({ "10" })
+    public int degree;
+
+    private String[] labels;
+    private Graph<String> graph;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public double bytesPerEdge;
+    }
+
+    @Setup(Level.Trial)
+    public void labels() {
+        labels = Fixtures.labels(size);
+    }
+
+    // Drops the previous iteration's graph before the next one is measured.
+    @TearDown(Level.Iteration)
+    public void release() {
+        graph = null;
+    }
+
+    @Benchmark
+    public Graph<String> build(Footprint footprint) {
+        long before = usedHeap();
+        graph = Fixtures.emptyGraph(implementation);
+        Fixtures.randomEdges(graph, labels, degree, new Random(Fixtures.SEED));
+        graph.compact();
+        long after = usedHeap();
+        long edges = 0;
+        for (String label : labels) {
+            edges += graph.outDegree(label);
+        }
+        footprint.bytesPerEdge = (double) (after - before) / edges;
+        return graph;
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks;
+
+import graph.Graph;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * add/set/remove on each mutable Graph implementation, at several sizes and
+ * densities (average out-degree).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphMutationBenchmark {
+
+    @Param({ "edges", "vertices", "compact", "concurrent", "offheap" })
+    public String implementation;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    @Param({ "2", "16" })
+    public int degree;
+
+    private Graph<String> graph;
+    private String[] labels;
+    private Random random;
+    private long added;
+
+    @Setup(Level.Trial)
+    public void build() {
+        random = new Random(Fixtures.SEED);
+        labels = Fixtures.labels(size);
+        graph = Fixtures.emptyGraph(implementation);
+        Fixtures.randomEdges(graph, labels, degree, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void release() {
+        Fixtures.release(graph);
+    }
+
+    @Benchmark
+    public boolean add() {
+        return graph.add("new" + added++);
+    }
+
+    @Benchmark
+    public int set() {
+        return graph.set(labels[random.nextInt(size)], labels[random.nextInt(size)], 1 + random.nextInt(100));
+    }
+
+    @Benchmark
+    public int increment() {
+        return graph.increment(labels[random.nextInt(size)], labels[random.nextInt(size)], 1);
+    }
+
+    // Removes a random vertex and puts its edges back, so the graph keeps its shape.
+    @Benchmark
+    public boolean removeAndRestore() {
+        String vertex = labels[random.nextInt(size)];
+        Map<String, Integer> targets = new HashMap<>(graph.targets(vertex));
+        Map<String, Integer> sources = new HashMap<>(graph.sources(vertex));
+        boolean removed = graph.remove(vertex);
+        graph.add(vertex);
+        for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+            graph.set(vertex, edge.getKey(), edge.getValue());
+        }
+        for (Map.Entry<String, Integer> edge : sources.entrySet()) {
+            graph.set(edge.getKey(), vertex, edge.getValue());
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import poet.GraphPoet;
+
+/**
+ * GraphPoet construction and poem() throughput against generated corpora with
+ * a Zipf-like word distribution. poems() writes the whole input set as one
+ * batch on every available core.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphPoetBenchmark {
+
+    @Param({ "100000", "1000000" })
+    public int corpusWords;
+
+    @Param({ "1000", "50000" })
+    public int vocabulary;
+
+    @Param({ "edges", "vertices", "compact" })
+    public String implementation;
+
+    private File corpus;
+    private GraphPoet poet;
+    private String[] inputs;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        Path file = Fixtures.corpus(corpusWords, vocabulary);
+        corpus = file.toFile();
+        poet = new GraphPoet(corpus, Fixtures.emptyGraph(implementation));
+        inputs = Fixtures.inputs(1024, 12, vocabulary);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public GraphPoet build() throws IOException {
+        return new GraphPoet(corpus, Fixtures.emptyGraph(implementation));
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public String poem(Cursor cursor) {
+        String input = inputs[cursor.next];
+        cursor.next = (cursor.next + 1) & (inputs.length - 1);
+        return poet.poem(input);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<String> poems() {
+        return poet.poems(Arrays.asList(inputs), Runtime.getRuntime().availableProcessors());
+    }
+}
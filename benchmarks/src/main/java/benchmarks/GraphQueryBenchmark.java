@@ -0,0 +1,102 @@
+package benchmarks;
+
+import graph.Graph;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * sources/targets on each Graph implementation, including frozen snapshots, at
+ * several sizes and densities (average out-degree).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphQueryBenchmark {
+
+    @Param({ "edges", "vertices", "compact", "concurrent", "offheap", "frozen" })
+    public String implementation;
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    @Param({ "2", "16" })
+    public int degree;
+
+    private Graph<String> graph;
+    private String[] labels;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void build() {
+        random = new Random(Fixtures.SEED);
+        labels = Fixtures.labels(size);
+        boolean frozen = implementation.equals("frozen");
+        graph = Fixtures.emptyGraph(frozen ? "edges" : implementation);
+        Fixtures.randomEdges(graph, labels, degree, random);
+        if (frozen) graph = graph.freeze();
+    }
+
+    @TearDown(Level.Trial)
+    public void release() {
+        Fixtures.release(graph);
+    }
+
+    @Benchmark
+    public void targets(Blackhole blackhole) {
+        for (Map.Entry<String, Integer> edge : graph.targets(labels[random.nextInt(size)]).entrySet()) {
+            blackhole.consume(edge.getKey());
+            blackhole.consume(edge.getValue().intValue());
+        }
+    }
+
+    @Benchmark
+    public void sources(Blackhole blackhole) {
+        for (Map.Entry<String, Integer> edge : graph.sources(labels[random.nextInt(size)]).entrySet()) {
+            blackhole.consume(edge.getKey());
+            blackhole.consume(edge.getValue().intValue());
+        }
+    }
+
+    @Benchmark
+    public void forEachTarget(Blackhole blackhole) {
+        graph.forEachTarget(labels[random.nextInt(size)], (target, weight) -> {
+            blackhole.consume(target);
+            blackhole.consume(weight);
+        });
+    }
+
+    @Benchmark
+    public Integer edgeLookup() {
+        return graph.targets(labels[random.nextInt(size)]).get(labels[random.nextInt(size)]);
+    }
+
+    @Benchmark
+    public int weight() {
+        return graph.weight(labels[random.nextInt(size)], labels[random.nextInt(size)]);
+    }
+
+    @Benchmark
+    public Map<String, Integer> topTargets() {
+        return graph.topTargets(labels[random.nextInt(size)], 4);
+    }
+}
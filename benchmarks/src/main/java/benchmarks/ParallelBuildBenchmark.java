@@ -0,0 +1,65 @@
+package benchmarks;
+
+import graph.Graph;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import poet.GraphPoet;
+
+/**
+ * Speedup curve of the fork/join corpus build: the sequential build against
+ * the parallel one at 1 to 32 worker threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelBuildBenchmark {
+
+    @Param({ "10000000" })
+    public int corpusWords;
+
+    @Param({ "50000" })
+    public int vocabulary;
+
+    private File corpus;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        corpus = Fixtures.corpus(corpusWords, vocabulary).toFile();
+    }
+
+    @Benchmark
+    public GraphPoet sequential() throws IOException {
+        return new GraphPoet(corpus, Graph.empty());
+    }
+
+    // Only the parallel build varies with the thread count.
+    @State(Scope.Benchmark)
+    public static class Workers {
+        @Param({ "1", "2", "4", "8", "16", "32" })
+        public int threads;
+    }
+
+    @Benchmark
+    public GraphPoet parallel(Workers workers) throws IOException {
+        return new GraphPoet(corpus, Graph.empty(), workers.threads);
+    }
+}
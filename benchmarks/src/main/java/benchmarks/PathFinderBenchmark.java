@@ -0,0 +1,79 @@
+package benchmarks;
+
+import graph.Graph;
+import graph.PathFinder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PathFinder queries between random vertex pairs of a random graph:
+ * one-directional against bidirectional Dijkstra, 2-hop reachability, and
+ * bridges of up to 3 words.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathFinderBenchmark {
+
+    @Param({ "10000", "100000" })
+    public int size;
+
+    @Param({ "4" })
+    public int degree;
+
+    private PathFinder<String> finder;
+    private String[] labels;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void build() {
+        random = new Random(Fixtures.SEED);
+        labels = Fixtures.labels(size);
+        Graph<String> graph = Fixtures.emptyGraph("edges");
+        Fixtures.randomEdges(graph, labels, degree, random);
+        finder = new PathFinder<>(graph);
+    }
+
+    private String pick() {
+        return labels[random.nextInt(size)];
+    }
+
+    @Benchmark
+    public List<String> shortestPath() {
+        return finder.shortestPath(pick(), pick());
+    }
+
+    @Benchmark
+    public List<String> bidirectionalShortestPath() {
+        return finder.bidirectionalShortestPath(pick(), pick());
+    }
+
+    @Benchmark
+    public Set<String> reachable() {
+        return finder.reachable(pick(), 2);
+    }
+
+    @Benchmark
+    public List<String> bridge() {
+        return finder.bridge(pick(), pick(), 3);
+    }
+}
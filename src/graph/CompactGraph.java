@@ -0,0 +1,546 @@
+package graph;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A Graph that interns labels to dense int IDs and keeps adjacency in
+ * primitive int arrays instead of per-edge objects.
+ *
+ * <p>Each direction is stored as a CSR (compressed sparse row) base plus a
+ * per-vertex delta buffer of edges added since the last compaction. Edges
+ * removed from the base are tombstoned with weight 0. The buffers are folded
+ * back into the base by {@link #compact()}, which also runs automatically
+ * once they grow past half the size of the base.
+ *
+ * <p>Labels are interned in a SymbolTable, whose IDs are the vertex IDs, so
+ * there is no boxed Integer or map entry per vertex. A removed vertex keeps
+ * its ID, and gets it back if it is added again, until compact() renumbers.
+ *
+ * <p>sources() and targets() return read-only views over the arrays; they
+ * copy nothing and always reflect the current state of the graph.
+ */
+public class CompactGraph<L> implements Graph<L> {
+
+    private static final int COMPACT_THRESHOLD = 1024;
+
+    private SymbolTable<L> symbols = new SymbolTable<>();
+    private boolean[] alive = new boolean[16];
+    private int deadIds = 0;
+    private final Set<L> vertexView = new VertexSet();
+    private final Adjacency out = new Adjacency();
+    private final Adjacency in = new Adjacency();
+
+    // Abstraction function:
+    //   vertex symbols.label(id) for every id with alive[id];
+    //   an edge id -> n with weight w for every live entry (n, w) in row id of out
+    // Rep invariant:
+    //   alive covers every ID in symbols, and deadIds counts the IDs that are
+    //   not alive; a vertex that is not alive has empty rows
+    //   in holds exactly the reverse of every live edge in out
+    private void checkRep() {
+        assert alive.length >= symbols.size() : "Alive flags should cover every ID";
+        assert deadIds >= 0 && deadIds <= symbols.size() : "Dead ID count should be in range";
+        assert out.deltaEntries >= 0 && in.deltaEntries >= 0 : "Delta counts should be non-negative";
+        assert out.edgeCount() == in.edgeCount() : "Both directions should hold the same edges";
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (id(vertex) >= 0) return false;
+        intern(vertex);
+        checkRep();
+        return true;
+    }
+
+    // Returns the ID of a vertex in the graph, or -1.
+    private int id(Object vertex) {
+        int id = symbols.find(vertex);
+        return id >= 0 && alive[id] ? id : -1;
+    }
+
+    private int intern(L vertex) {
+        if (vertex == null) throw new IllegalArgumentException("Vertex cannot be null");
+        int known = symbols.size();
+        int id = symbols.id(vertex);
+        if (id == known) {
+            if (id == alive.length) alive = Arrays.copyOf(alive, id * 2);
+            out.ensureCapacity(id + 1);
+            in.ensureCapacity(id + 1);
+        } else if (!alive[id]) {
+            deadIds--;
+        }
+        alive[id] = true;
+        return id;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+        int s = intern(source);
+        int t = intern(target);
+        int previousWeight = out.put(s, t, weight);
+        in.put(t, s, weight);
+        compactIfNeeded();
+        checkRep();
+        return previousWeight;
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+        int s = intern(source);
+        int t = intern(target);
+        int previousWeight = out.get(s, t);
+        if (previousWeight + delta < 0) throw new IllegalArgumentException("Weight cannot be negative");
+        out.put(s, t, previousWeight + delta);
+        in.put(t, s, previousWeight + delta);
+        compactIfNeeded();
+        checkRep();
+        return previousWeight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        if (!tombstone(vertex)) return false;
+        compactIfNeeded();
+        checkRep();
+        return true;
+    }
+
+    // Tombstones every vertex first, so the space is reclaimed by at most one
+    // compaction at the end rather than by several along the way.
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        boolean changed = false;
+        for (L vertex : vertices) {
+            changed |= tombstone(vertex);
+        }
+        compactIfNeeded();
+        checkRep();
+        return changed;
+    }
+
+    // Frees vertex's ID and tombstones its edges in O(degree); compact() drops both later.
+    private boolean tombstone(L vertex) {
+        int v = id(vertex);
+        if (v < 0) return false;
+        out.forEach(v, (n, w) -> in.put(n, v, 0));
+        in.forEach(v, (n, w) -> out.put(n, v, 0));
+        out.clear(v);
+        in.clear(v);
+        alive[v] = false;
+        deadIds++;
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return vertexView;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return id(target) >= 0 ? new RowView(in, target) : Collections.emptyMap();
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return id(source) >= 0 ? new RowView(out, source) : Collections.emptyMap();
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        int id = id(source);
+        if (id >= 0) visit(out, id, visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        int id = id(target);
+        if (id >= 0) visit(in, id, visitor);
+    }
+
+    // Walks the base row and then the delta row like Adjacency.forEach(), but
+    // inline, so no lambda is made to carry the visitor.
+    private void visit(Adjacency adjacency, int v, ObjIntConsumer<? super L> visitor) {
+        if (v < adjacency.baseVertices()) {
+            for (int i = adjacency.offsets[v]; i < adjacency.offsets[v + 1]; i++) {
+                if (adjacency.weights[i] > 0) visitor.accept(label(adjacency.neighbors[i]), adjacency.weights[i]);
+            }
+        }
+        for (int i = 0; i < adjacency.deltaSize[v]; i++) {
+            visitor.accept(label(adjacency.deltaNeighbors[v][i]), adjacency.deltaWeights[v][i]);
+        }
+    }
+
+    private L label(int id) {
+        return symbols.label(id);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        int s = id(source);
+        int t = id(target);
+        return s < 0 || t < 0 ? 0 : out.get(s, t);
+    }
+
+    @Override
+    public int outDegree(L source) {
+        int id = id(source);
+        return id < 0 ? 0 : out.degree[id];
+    }
+
+    @Override
+    public int inDegree(L target) {
+        int id = id(target);
+        return id < 0 ? 0 : in.degree[id];
+    }
+
+    /**
+     * Folds the delta buffers into the CSR base, drops tombstones and
+     * renumbers the surviving vertices densely.
+     */
+    @Override
+    public void compact() {
+        int[] remap = new int[symbols.size()];
+        List<L> live = new ArrayList<>(symbols.size() - deadIds);
+        for (int id = 0; id < remap.length; id++) {
+            if (alive[id]) {
+                remap[id] = live.size();
+                live.add(symbols.label(id));
+            } else {
+                remap[id] = -1;
+            }
+        }
+        int next = live.size();
+        out.rebuild(remap, next);
+        in.rebuild(remap, next);
+        // of() numbers the labels in order, which is the remapping above
+        symbols = SymbolTable.of(live);
+        alive = new boolean[Math.max(16, next)];
+        Arrays.fill(alive, 0, next, true);
+        deadIds = 0;
+        checkRep();
+    }
+
+    private void compactIfNeeded() {
+        long pending = out.deltaEntries + out.tombstones;
+        if ((pending > COMPACT_THRESHOLD && pending > out.baseLength() / 2)
+                || (deadIds > COMPACT_THRESHOLD && deadIds > symbols.size() / 2)) {
+            compact();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(vertexView).append("\nEdges:\n");
+        for (int id = 0; id < symbols.size(); id++) {
+            if (!alive[id]) continue;
+            L source = symbols.label(id);
+            out.forEach(id, (n, w) -> sb.append("  ").append(source).append(" -> ")
+                    .append(symbols.label(n)).append(" (").append(w).append(")\n"));
+        }
+        return sb.toString();
+    }
+
+    // Read-only view of one adjacency row, resolved by label on every access so
+    // it stays valid across compactions.
+    private final class RowView extends AbstractMap<L, Integer> {
+        private final Adjacency adjacency;
+        private final L vertex;
+
+        RowView(Adjacency adjacency, L vertex) {
+            this.adjacency = adjacency;
+            this.vertex = vertex;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int v = id(vertex);
+            int n = id(key);
+            if (v < 0 || n < 0) return null;
+            int weight = adjacency.get(v, n);
+            return weight == 0 ? null : weight;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            int v = id(vertex);
+            return v < 0 ? 0 : adjacency.degree[v];
+        }
+
+        @Override
+        public Set<Map.Entry<L, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<L, Integer>>() {
+                @Override
+                public int size() {
+                    return RowView.this.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<L, Integer>> iterator() {
+                    int v = id(vertex);
+                    return v < 0 ? Collections.emptyIterator() : new RowIterator(adjacency, v);
+                }
+            };
+        }
+    }
+
+    private final class RowIterator implements Iterator<Map.Entry<L, Integer>> {
+        private final Adjacency adjacency;
+        private final int vertex;
+        private int baseIndex;
+        private final int baseEnd;
+        private int deltaIndex = 0;
+
+        RowIterator(Adjacency adjacency, int vertex) {
+            this.adjacency = adjacency;
+            this.vertex = vertex;
+            boolean inBase = vertex < adjacency.baseVertices();
+            this.baseIndex = inBase ? adjacency.offsets[vertex] : 0;
+            this.baseEnd = inBase ? adjacency.offsets[vertex + 1] : 0;
+            skipTombstones();
+        }
+
+        private void skipTombstones() {
+            while (baseIndex < baseEnd && adjacency.weights[baseIndex] == 0) baseIndex++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return baseIndex < baseEnd || deltaIndex < adjacency.deltaSize[vertex];
+        }
+
+        @Override
+        public Map.Entry<L, Integer> next() {
+            int neighbor;
+            int weight;
+            if (baseIndex < baseEnd) {
+                neighbor = adjacency.neighbors[baseIndex];
+                weight = adjacency.weights[baseIndex];
+                baseIndex++;
+                skipTombstones();
+            } else if (deltaIndex < adjacency.deltaSize[vertex]) {
+                neighbor = adjacency.deltaNeighbors[vertex][deltaIndex];
+                weight = adjacency.deltaWeights[vertex][deltaIndex];
+                deltaIndex++;
+            } else {
+                throw new NoSuchElementException();
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(symbols.label(neighbor), weight);
+        }
+    }
+
+    // Live view of the vertices, in ID order.
+    private final class VertexSet extends AbstractSet<L> {
+
+        @Override
+        public int size() {
+            return symbols.size() - deadIds;
+        }
+
+        @Override
+        public boolean contains(Object vertex) {
+            return id(vertex) >= 0;
+        }
+
+        @Override
+        public Iterator<L> iterator() {
+            return new Iterator<L>() {
+                private int next = advance(0);
+
+                private int advance(int id) {
+                    while (id < symbols.size() && !alive[id]) id++;
+                    return id;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < symbols.size();
+                }
+
+                @Override
+                public L next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    L label = symbols.label(next);
+                    next = advance(next + 1);
+                    return label;
+                }
+            };
+        }
+    }
+
+    private interface IntEdgeConsumer {
+        void accept(int neighbor, int weight);
+    }
+
+    // One direction of adjacency: a CSR base over IDs below baseVertices(), plus
+    // sorted per-vertex delta rows for edges that are not in the base.
+    private static final class Adjacency {
+        int[] offsets = {0};
+        int[] neighbors = new int[0];
+        int[] weights = new int[0];
+        int[][] deltaNeighbors = new int[16][];
+        int[][] deltaWeights = new int[16][];
+        int[] deltaSize = new int[16];
+        int[] degree = new int[16];
+        long deltaEntries = 0;
+        long tombstones = 0;
+
+        int baseVertices() {
+            return offsets.length - 1;
+        }
+
+        int baseLength() {
+            return offsets[baseVertices()];
+        }
+
+        long edgeCount() {
+            return baseLength() - tombstones + deltaEntries;
+        }
+
+        void ensureCapacity(int vertices) {
+            if (vertices <= degree.length) return;
+            int capacity = Math.max(vertices, degree.length * 2);
+            deltaNeighbors = Arrays.copyOf(deltaNeighbors, capacity);
+            deltaWeights = Arrays.copyOf(deltaWeights, capacity);
+            deltaSize = Arrays.copyOf(deltaSize, capacity);
+            degree = Arrays.copyOf(degree, capacity);
+        }
+
+        int get(int v, int n) {
+            if (v < baseVertices()) {
+                int i = Arrays.binarySearch(neighbors, offsets[v], offsets[v + 1], n);
+                if (i >= 0) return weights[i];
+            }
+            int size = deltaSize[v];
+            if (size == 0) return 0;
+            int i = Arrays.binarySearch(deltaNeighbors[v], 0, size, n);
+            return i >= 0 ? deltaWeights[v][i] : 0;
+        }
+
+        // Sets the weight of v -> n, where 0 removes the edge; returns the previous weight.
+        int put(int v, int n, int weight) {
+            if (v < baseVertices()) {
+                int i = Arrays.binarySearch(neighbors, offsets[v], offsets[v + 1], n);
+                if (i >= 0) {
+                    int previous = weights[i];
+                    weights[i] = weight;
+                    if (previous == 0 && weight > 0) {
+                        tombstones--;
+                        degree[v]++;
+                    } else if (previous > 0 && weight == 0) {
+                        tombstones++;
+                        degree[v]--;
+                    }
+                    return previous;
+                }
+            }
+            int size = deltaSize[v];
+            int[] ns = deltaNeighbors[v];
+            int i = size == 0 ? -1 : Arrays.binarySearch(ns, 0, size, n);
+            if (i >= 0) {
+                int previous = deltaWeights[v][i];
+                if (weight > 0) {
+                    deltaWeights[v][i] = weight;
+                } else {
+                    System.arraycopy(ns, i + 1, ns, i, size - i - 1);
+                    System.arraycopy(deltaWeights[v], i + 1, deltaWeights[v], i, size - i - 1);
+                    deltaSize[v]--;
+                    deltaEntries--;
+                    degree[v]--;
+                }
+                return previous;
+            }
+            if (weight == 0) return 0;
+            if (ns == null || size == ns.length) {
+                int capacity = ns == null ? 4 : size * 2;
+                ns = deltaNeighbors[v] = ns == null ? new int[capacity] : Arrays.copyOf(ns, capacity);
+                deltaWeights[v] = deltaWeights[v] == null ? new int[capacity] : Arrays.copyOf(deltaWeights[v], capacity);
+            }
+            int at = -i - 1;
+            System.arraycopy(ns, at, ns, at + 1, size - at);
+            System.arraycopy(deltaWeights[v], at, deltaWeights[v], at + 1, size - at);
+            ns[at] = n;
+            deltaWeights[v][at] = weight;
+            deltaSize[v]++;
+            deltaEntries++;
+            degree[v]++;
+            return 0;
+        }
+
+        void forEach(int v, IntEdgeConsumer consumer) {
+            if (v < baseVertices()) {
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    if (weights[i] > 0) consumer.accept(neighbors[i], weights[i]);
+                }
+            }
+            for (int i = 0; i < deltaSize[v]; i++) {
+                consumer.accept(deltaNeighbors[v][i], deltaWeights[v][i]);
+            }
+        }
+
+        void clear(int v) {
+            if (v < baseVertices()) {
+                for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                    if (weights[i] > 0) {
+                        weights[i] = 0;
+                        tombstones++;
+                    }
+                }
+            }
+            deltaEntries -= deltaSize[v];
+            deltaNeighbors[v] = null;
+            deltaWeights[v] = null;
+            deltaSize[v] = 0;
+            degree[v] = 0;
+        }
+
+        // Merges every live row into a fresh CSR base under the new numbering.
+        // remap is monotonic, so rows stay sorted without re-sorting.
+        void rebuild(int[] remap, int vertexCount) {
+            int[] newOffsets = new int[vertexCount + 1];
+            int[] newNeighbors = new int[(int) edgeCount()];
+            int[] newWeights = new int[newNeighbors.length];
+            int k = 0;
+            for (int v = 0; v < remap.length; v++) {
+                if (remap[v] < 0) continue;
+                int i = v < baseVertices() ? offsets[v] : 0;
+                int baseEnd = v < baseVertices() ? offsets[v + 1] : 0;
+                int j = 0;
+                int size = deltaSize[v];
+                while (i < baseEnd || j < size) {
+                    if (i < baseEnd && weights[i] == 0) {
+                        i++;
+                    } else if (j >= size || (i < baseEnd && neighbors[i] < deltaNeighbors[v][j])) {
+                        newNeighbors[k] = remap[neighbors[i]];
+                        newWeights[k++] = weights[i++];
+                    } else {
+                        newNeighbors[k] = remap[deltaNeighbors[v][j]];
+                        newWeights[k++] = deltaWeights[v][j++];
+                    }
+                }
+                newOffsets[remap[v] + 1] = k;
+            }
+            offsets = newOffsets;
+            neighbors = newNeighbors;
+            weights = newWeights;
+            int capacity = Math.max(16, vertexCount);
+            deltaNeighbors = new int[capacity][];
+            deltaWeights = new int[capacity][];
+            deltaSize = new int[capacity];
+            degree = new int[capacity];
+            for (int v = 0; v < vertexCount; v++) {
+                degree[v] = offsets[v + 1] - offsets[v];
+            }
+            deltaEntries = 0;
+            tombstones = 0;
+        }
+    }
+}
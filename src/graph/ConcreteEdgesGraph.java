@@ -1,52 +1,201 @@
 package graph;
 
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
 public class ConcreteEdgesGraph<L> implements Graph<L> {
 
+    // Every edge is stored once and indexed twice: by source (outEdges) and by
+    // target (inEdges), so edge lookup is O(1) and neighbor queries are O(degree).
+    // A vertex only has an entry in an index while it has edges in that direction.
+    // Each Row also keeps its edges in weight order, so top-k queries are O(k).
     private final Set<L> vertices = new HashSet<>();
-    private final List<Edge<L>> edges = new ArrayList<>();
+    private Map<L, Row<L>> outEdges = new HashMap<>();
+    private Map<L, Row<L>> inEdges = new HashMap<>();
+    // Every label is stored as its canonical instance from symbols, so each
+    // distinct vertex is held once however many edges refer to it. A table
+    // this graph made itself is rebuilt by compact(); a shared one is not.
+    private SymbolTable<L> symbols;
+    private final boolean ownsSymbols;
+    // How much of the rep -ea checks after a mutation, read from the
+    // graph.validation property; mutations counts them for periodic checks.
+    private final Validation validation = Validation.configured();
+    private long mutations = 0;
 
+    public ConcreteEdgesGraph() {
+        this(new SymbolTable<>(), true);
+    }
+
+    // Shares symbols with other graphs or callers that intern the same labels.
+    public ConcreteEdgesGraph(SymbolTable<L> symbols) {
+        this(symbols, false);
+    }
+
+    private ConcreteEdgesGraph(SymbolTable<L> symbols, boolean ownsSymbols) {
+        this.symbols = symbols;
+        this.ownsSymbols = ownsSymbols;
+    }
+
+    // Checks the whole rep if validation calls for it after this mutation;
+    // in incremental mode a mutation checks the rows it touched instead.
     private void checkRep() {
         assert vertices != null : "Vertices set should not be null";
-        assert edges != null : "Edges list should not be null";
-        for (Edge<L> edge : edges) {
-            assert vertices.contains(edge.getSource()) : "Edge source should be in vertices set";
-            assert vertices.contains(edge.getTarget()) : "Edge target should be in vertices set";
-            assert edge.getWeight() > 0 : "Edge weight should be positive";
+        assert outEdges != null && inEdges != null : "Edge indexes should not be null";
+        assert !validation.checksAll(++mutations) || edgesIndexed();
+    }
+
+    // checkRep() for a mutation that touched only the edge source -> target.
+    private void checkRep(L source, L target) {
+        checkRep();
+        assert !validation.checksTouched() || (rowsIndexed(source) && rowsIndexed(target));
+    }
+
+    // Walks every edge, so it is only called from an assert and costs nothing without -ea.
+    private boolean edgesIndexed() {
+        int edgeCount = 0;
+        for (Map.Entry<L, Row<L>> row : outEdges.entrySet()) {
+            assert !row.getValue().isEmpty() : "Empty rows should be dropped from the index";
+            assert row.getValue().ranked();
+            for (Edge<L> edge : row.getValue().edges.values()) {
+                assert edge.getSource().equals(row.getKey()) : "Edge should be indexed by its source";
+                assert vertices.contains(edge.getSource()) : "Edge source should be in vertices set";
+                assert vertices.contains(edge.getTarget()) : "Edge target should be in vertices set";
+                assert edge.getWeight() > 0 : "Edge weight should be positive";
+                assert inEdges.get(edge.getTarget()).edges.get(edge.getSource()) == edge : "Edge should be indexed by its target";
+                edgeCount++;
+            }
+        }
+        for (Row<L> row : inEdges.values()) {
+            assert row.ranked();
+            edgeCount -= row.size;
+        }
+        assert edgeCount == 0 : "Both indexes should hold the same edges";
+        return true;
+    }
+
+    // The incremental check: vertex's rows in both indexes agree with each
+    // other and with the vertices set. Costs O(degree of vertex).
+    private boolean rowsIndexed(L vertex) {
+        Row<L> out = outEdges.get(vertex);
+        Row<L> in = inEdges.get(vertex);
+        if (out == null && in == null) return true;
+        assert vertices.contains(vertex) : "Vertex with edges should be in vertices set";
+        if (out != null) {
+            assert !out.isEmpty() : "Empty rows should be dropped from the index";
+            assert out.ranked();
+            for (Edge<L> edge : out.edges.values()) {
+                assert edge.getSource().equals(vertex) : "Edge should be indexed by its source";
+                assert vertices.contains(edge.getTarget()) : "Edge target should be in vertices set";
+                assert edge.getWeight() > 0 : "Edge weight should be positive";
+                assert inEdges.get(edge.getTarget()).edges.get(vertex) == edge : "Edge should be indexed by its target";
+            }
         }
+        if (in != null) {
+            assert !in.isEmpty() : "Empty rows should be dropped from the index";
+            assert in.ranked();
+            for (Edge<L> edge : in.edges.values()) {
+                assert edge.getTarget().equals(vertex) : "Edge should be indexed by its target";
+                assert outEdges.get(edge.getSource()).edges.get(vertex) == edge : "Edge should be indexed by its source";
+            }
+        }
+        return true;
+    }
+
+    private boolean everyRowIndexed(Collection<? extends L> vertices) {
+        for (L vertex : vertices) {
+            assert rowsIndexed(vertex);
+        }
+        return true;
+    }
+
+    private boolean pairsIndexed(Set<Pair<L>> edges) {
+        for (Pair<L> edge : edges) {
+            assert rowsIndexed(edge.getSource()) && rowsIndexed(edge.getTarget());
+        }
+        return true;
     }
 
     @Override
     public boolean add(L vertex) {
-        boolean added = vertices.add(vertex);
+        boolean added = vertices.add(symbols.intern(vertex));
         checkRep();
+        assert !validation.checksTouched() || vertices.contains(vertex);
         return added;
     }
 
     @Override
     public int set(L source, L target, int weight) {
-        if (!vertices.contains(source)) add(source);
-        if (!vertices.contains(target)) add(target);
+        int previousWeight = setEdge(source, target, weight);
+        checkRep(source, target);
+        return previousWeight;
+    }
 
-        int previousWeight = 0;
+    @Override
+    public int increment(L source, L target, int delta) {
+        int previousWeight = incrementEdge(source, target, delta);
+        checkRep(source, target);
+        return previousWeight;
+    }
 
-        Edge<L> toRemove = null;
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(source) && edge.getTarget().equals(target)) {
-                previousWeight = edge.getWeight();
-                toRemove = edge;
-                break;
-            }
+    @Override
+    public boolean addAll(Collection<? extends L> vertices) {
+        boolean changed = false;
+        for (L vertex : vertices) {
+            changed |= this.vertices.add(symbols.intern(vertex));
         }
+        checkRep();
+        assert !validation.checksTouched() || this.vertices.containsAll(vertices);
+        return changed;
+    }
 
-        if (toRemove != null) edges.remove(toRemove);
-
-        if (weight > 0) {
-            edges.add(new Edge<>(source, target, weight));
+    @Override
+    public void setAll(Map<Pair<L>, Integer> weights) {
+        for (Map.Entry<Pair<L>, Integer> edge : weights.entrySet()) {
+            setEdge(edge.getKey().getSource(), edge.getKey().getTarget(), edge.getValue());
         }
+        checkRep();
+        assert !validation.checksTouched() || pairsIndexed(weights.keySet());
+    }
 
+    @Override
+    public void mergeWeights(Map<Pair<L>, Integer> deltas) {
+        for (Map.Entry<Pair<L>, Integer> edge : deltas.entrySet()) {
+            incrementEdge(edge.getKey().getSource(), edge.getKey().getTarget(), edge.getValue());
+        }
         checkRep();
+        assert !validation.checksTouched() || pairsIndexed(deltas.keySet());
+    }
+
+    private int incrementEdge(L source, L target, int delta) {
+        Row<L> out = outEdges.get(source);
+        Edge<L> previous = out == null ? null : out.edges.get(target);
+        int previousWeight = previous == null ? 0 : previous.getWeight();
+        if (previousWeight + delta < 0) {
+            throw new IllegalArgumentException("Weight cannot be negative");
+        }
+        setEdge(source, target, previousWeight + delta);
+        return previousWeight;
+    }
+
+    // set() without the rep check, so batches can check once at the end.
+    private int setEdge(L source, L target, int weight) {
+        source = symbols.intern(source);
+        target = symbols.intern(target);
+        vertices.add(source);
+        vertices.add(target);
+
+        Row<L> out = outEdges.get(source);
+        Edge<L> previous = out == null ? null : out.edges.get(target);
+        int previousWeight = previous == null ? 0 : previous.getWeight();
+
+        if (weight > 0) {
+            Edge<L> edge = new Edge<>(source, target, weight);
+            outEdges.computeIfAbsent(source, k -> new Row<>(true)).put(target, edge, previous);
+            inEdges.computeIfAbsent(target, k -> new Row<>(false)).put(source, edge, previous);
+        } else if (previous != null) {
+            unlink(outEdges, source, target);
+            unlink(inEdges, target, source);
+        }
         return previousWeight;
     }
 
@@ -55,11 +204,88 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         if (!vertices.contains(vertex)) return false;
 
         vertices.remove(vertex);
-        edges.removeIf(edge -> edge.getSource().equals(vertex) || edge.getTarget().equals(vertex));
+        Row<L> out = outEdges.remove(vertex);
+        if (out != null) {
+            for (L target : out.edges.keySet()) unlink(inEdges, target, vertex);
+        }
+        Row<L> in = inEdges.remove(vertex);
+        if (in != null) {
+            for (L source : in.edges.keySet()) unlink(outEdges, source, vertex);
+        }
         checkRep();
+        // the detached rows still list the neighbors whose rows changed
+        assert !validation.checksTouched() || (!outEdges.containsKey(vertex) && !inEdges.containsKey(vertex)
+                && (out == null || everyRowIndexed(out.edges.keySet())) && (in == null || everyRowIndexed(in.edges.keySet())));
         return true;
     }
 
+    // Drops the rows of every removed vertex whole, and unlinks its edges only
+    // from the rows of neighbors that stay, so an edge between two removed
+    // vertices is never unlinked at all.
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        Set<L> removed = new HashSet<>();
+        for (L vertex : vertices) {
+            if (this.vertices.remove(vertex)) removed.add(vertex);
+        }
+        Set<L> touched = new HashSet<>();
+        for (L vertex : removed) {
+            Row<L> out = outEdges.remove(vertex);
+            if (out != null) {
+                for (L target : out.edges.keySet()) {
+                    if (removed.contains(target)) continue;
+                    unlink(inEdges, target, vertex);
+                    touched.add(target);
+                }
+            }
+            Row<L> in = inEdges.remove(vertex);
+            if (in != null) {
+                for (L source : in.edges.keySet()) {
+                    if (removed.contains(source)) continue;
+                    unlink(outEdges, source, vertex);
+                    touched.add(source);
+                }
+            }
+        }
+        checkRep();
+        assert !validation.checksTouched() || everyRowIndexed(touched);
+        return !removed.isEmpty();
+    }
+
+    // Row arrays and hash tables keep their peak size after removals; this
+    // trims every row and rebuilds both indexes at the size of what is left,
+    // and an owned symbol table with only the vertices left. The vertex set
+    // is not rebuilt, because vertices() is a live view of it.
+    @Override
+    public void compact() {
+        outEdges = compacted(outEdges);
+        inEdges = compacted(inEdges);
+        if (ownsSymbols) symbols = SymbolTable.of(vertices);
+        checkRep();
+    }
+
+    // For tests: the number of labels in the symbol table.
+    int symbolCount() {
+        return symbols.size();
+    }
+
+    private static <L> Map<L, Row<L>> compacted(Map<L, Row<L>> index) {
+        Map<L, Row<L>> copy = new HashMap<>(index.size() * 4 / 3 + 1);
+        for (Map.Entry<L, Row<L>> row : index.entrySet()) {
+            row.getValue().trim();
+            copy.put(row.getKey(), row.getValue());
+        }
+        return copy;
+    }
+
+    // Removes index[key][neighbor], dropping the row once it is empty.
+    private static <L> void unlink(Map<L, Row<L>> index, L key, L neighbor) {
+        Row<L> row = index.get(key);
+        if (row == null) return;
+        row.remove(neighbor);
+        if (row.isEmpty()) index.remove(key);
+    }
+
     @Override
     public Set<L> vertices() {
         return Collections.unmodifiableSet(vertices);
@@ -68,8 +294,9 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     @Override
     public Map<L, Integer> sources(L target) {
         Map<L, Integer> sources = new HashMap<>();
-        for (Edge<L> edge : edges) {
-            if (edge.getTarget().equals(target)) {
+        Row<L> in = inEdges.get(target);
+        if (in != null) {
+            for (Edge<L> edge : in.edges.values()) {
                 sources.put(edge.getSource(), edge.getWeight());
             }
         }
@@ -79,28 +306,206 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
     @Override
     public Map<L, Integer> targets(L source) {
         Map<L, Integer> targets = new HashMap<>();
-        for (Edge<L> edge : edges) {
-            if (edge.getSource().equals(source)) {
+        Row<L> out = outEdges.get(source);
+        if (out != null) {
+            for (Edge<L> edge : out.edges.values()) {
                 targets.put(edge.getTarget(), edge.getWeight());
             }
         }
         return Collections.unmodifiableMap(targets);
     }
 
+    // Visits heaviest first, straight from the row's byWeight array.
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        visit(outEdges.get(source), visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        visit(inEdges.get(target), visitor);
+    }
+
+    private static <L> void visit(Row<L> row, ObjIntConsumer<? super L> visitor) {
+        if (row == null) return;
+        for (int i = 0; i < row.size; i++) {
+            Edge<L> edge = row.byWeight[i];
+            visitor.accept(row.neighbor(edge), edge.weight);
+        }
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        Row<L> out = outEdges.get(source);
+        Edge<L> edge = out == null ? null : out.edges.get(target);
+        return edge == null ? 0 : edge.weight;
+    }
+
+    @Override
+    public int outDegree(L source) {
+        Row<L> out = outEdges.get(source);
+        return out == null ? 0 : out.size;
+    }
+
+    @Override
+    public int inDegree(L target) {
+        Row<L> in = inEdges.get(target);
+        return in == null ? 0 : in.size;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("Vertices: ").append(vertices).append("\nEdges: ");
-        for (Edge<L> edge : edges) {
-            sb.append(edge.toString()).append("\n");
+        sb.append("Vertices: ").append(vertices).append("\nEdges:\n");
+        for (Row<L> row : outEdges.values()) {
+            for (Edge<L> edge : row.edges.values()) {
+                sb.append("  ").append(edge.toString()).append("\n");
+            }
         }
         return sb.toString();
     }
 
+    @Override
+    public Map<L, Integer> topTargets(L source, int k) {
+        return top(outEdges.get(source), k);
+    }
+
+    @Override
+    public Map<L, Integer> topSources(L target, int k) {
+        return top(inEdges.get(target), k);
+    }
+
+    private static <L> Map<L, Integer> top(Row<L> row, int k) {
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative");
+        int n = row == null ? 0 : Math.min(k, row.size);
+        if (n == 0) return Collections.emptyMap();
+        Map<L, Integer> top = new LinkedHashMap<>(n * 4 / 3 + 1);
+        for (int i = 0; i < n; i++) {
+            Edge<L> edge = row.byWeight[i];
+            top.put(row.neighbor(edge), edge.getWeight());
+        }
+        return Collections.unmodifiableMap(top);
+    }
+
+    // One vertex's edges in one direction: by neighbor for lookup, and in
+    // byWeight[0, size) heaviest first for top-k queries. Each edge records its
+    // position in byWeight (outRank in its source's row, inRank in its
+    // target's), so a change of weight moves it without a search.
+    private static final class Row<L> {
+        Map<L, Edge<L>> edges = new HashMap<>();
+        final boolean outgoing;
+        Edge<L>[] byWeight;
+        int size = 0;
+
+        Row(boolean outgoing) {
+            this.outgoing = outgoing;
+            this.byWeight = newEdges(2);
+        }
+
+        // Java cannot create an array of Edge<L>; an Edge<?>[] holds only
+        // edges of this row, which are all Edge<L>.
+        @SuppressWarnings("unchecked")
+        private static <L> Edge<L>[] newEdges(int length) {
+            return (Edge<L>[]) new Edge<?>[length];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        L neighbor(Edge<L> edge) {
+            return outgoing ? edge.target : edge.source;
+        }
+
+        private int rank(Edge<L> edge) {
+            return outgoing ? edge.outRank : edge.inRank;
+        }
+
+        private void place(Edge<L> edge, int rank) {
+            byWeight[rank] = edge;
+            if (outgoing) {
+                edge.outRank = rank;
+            } else {
+                edge.inRank = rank;
+            }
+        }
+
+        // Stores edge for neighbor, replacing previous, the edge it had before.
+        void put(L neighbor, Edge<L> edge, Edge<L> previous) {
+            edges.put(neighbor, edge);
+            if (previous == null) {
+                if (size == byWeight.length) byWeight = Arrays.copyOf(byWeight, size * 2);
+                place(edge, size++);
+            } else {
+                place(edge, rank(previous));
+            }
+            move(rank(edge), edge.weight);
+        }
+
+        void remove(L neighbor) {
+            Edge<L> edge = edges.remove(neighbor);
+            if (edge == null) return;
+            move(rank(edge), 0);
+            byWeight[--size] = null;
+        }
+
+        // Shrinks byWeight and the edge table to fit the edges left.
+        void trim() {
+            byWeight = Arrays.copyOf(byWeight, Math.max(2, size));
+            edges = new HashMap<>(edges);
+        }
+
+        // Moves the edge at rank to where weight belongs. Each step swaps it with
+        // the far end of the run of equal weights next to it, so a +1 increment
+        // costs one binary search however many neighbors share its old weight.
+        private void move(int rank, int weight) {
+            Edge<L> edge = byWeight[rank];
+            while (rank > 0 && byWeight[rank - 1].weight < weight) {
+                int head = firstAtMost(byWeight[rank - 1].weight, 0, rank - 1);
+                place(byWeight[head], rank);
+                place(edge, head);
+                rank = head;
+            }
+            while (rank < size - 1 && byWeight[rank + 1].weight > weight) {
+                int tail = firstAtMost(byWeight[rank + 1].weight - 1, rank + 1, size) - 1;
+                place(byWeight[tail], rank);
+                place(edge, tail);
+                rank = tail;
+            }
+        }
+
+        // Returns the first index in [from, to) whose weight is at most weight,
+        // or to if there is none; [from, to) must be sorted heaviest first.
+        private int firstAtMost(int weight, int from, int to) {
+            while (from < to) {
+                int middle = (from + to) >>> 1;
+                if (byWeight[middle].weight > weight) {
+                    from = middle + 1;
+                } else {
+                    to = middle;
+                }
+            }
+            return from;
+        }
+
+        // For checkRep: byWeight is sorted and every edge knows its rank.
+        boolean ranked() {
+            assert size == edges.size() : "Every edge should be ranked once";
+            for (int i = 0; i < size; i++) {
+                assert rank(byWeight[i]) == i : "Edge should know its rank";
+                assert i == 0 || byWeight[i - 1].weight >= byWeight[i].weight : "Row should be heaviest first";
+            }
+            return true;
+        }
+    }
+
     public static class Edge<L> {
         private final L source;
         private final L target;
         private final int weight;
+        // positions in the source's and the target's Row.byWeight
+        private int outRank;
+        private int inRank;
 
         public Edge(L source, L target, int weight) {
             if (source == null || target == null || weight <= 0) {
@@ -123,6 +528,19 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
             return weight;
         }
 
+        @Override
+        public boolean equals(Object that) {
+            if (this == that) return true;
+            if (!(that instanceof Edge)) return false;
+            Edge<?> other = (Edge<?>) that;
+            return source.equals(other.source) && target.equals(other.target) && weight == other.weight;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(source, target, weight);
+        }
+
         @Override
         public String toString() {
             return source + " -> " + target + " (" + weight + ")";
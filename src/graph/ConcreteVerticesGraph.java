@@ -1,90 +1,268 @@
 package graph;
 
 import java.util.*;
+import java.util.function.ObjIntConsumer;
 
-public class ConcreteVerticesGraph {
-    private final Set<String> vertices;
-    private final Map<String, Map<String, Integer>> edges;
+public class ConcreteVerticesGraph<L> implements Graph<L> {
+    private final Set<L> vertices;
+    // edges.get(v) holds v's outgoing edges and reverseEdges.get(v) its incoming
+    // ones; every edge appears in both, so neighbor queries are O(degree).
+    private Map<L, Map<L, Integer>> edges;
+    private Map<L, Map<L, Integer>> reverseEdges;
+    // Labels are stored as their canonical instances from symbols. A table
+    // this graph made itself is rebuilt by compact(); a shared one is not.
+    private SymbolTable<L> symbols;
+    private final boolean ownsSymbols;
+    // How much of the rep -ea checks after a mutation, read from the
+    // graph.validation property; mutations counts them for periodic checks.
+    private final Validation validation = Validation.configured();
+    private long mutations = 0;
 
     public ConcreteVerticesGraph() {
+        this(new SymbolTable<>(), true);
+    }
+
+    // Shares symbols with other graphs or callers that intern the same labels.
+    public ConcreteVerticesGraph(SymbolTable<L> symbols) {
+        this(symbols, false);
+    }
+
+    private ConcreteVerticesGraph(SymbolTable<L> symbols, boolean ownsSymbols) {
         this.vertices = new HashSet<>();
         this.edges = new HashMap<>();
+        this.reverseEdges = new HashMap<>();
+        this.symbols = symbols;
+        this.ownsSymbols = ownsSymbols;
+    }
+
+    // 1. add(L vertex)
+    @Override
+    public boolean add(L vertex) {
+        boolean added = addVertex(vertex);
+        assert repOk(vertex, vertex);
+        return added;
     }
 
-    // 1. add(String vertex)
-    public boolean add(String vertex) {
+    private boolean addVertex(L vertex) {
         if (vertices.contains(vertex)) {
             return false;
         }
+        vertex = symbols.intern(vertex);
         vertices.add(vertex);
         edges.put(vertex, new HashMap<>());
+        reverseEdges.put(vertex, new HashMap<>());
         return true;
     }
 
-    // 2. set(String source, String target, int weight)
-    public int set(String source, String target, int weight) {
+    // 2. set(L source, L target, int weight)
+    @Override
+    public int set(L source, L target, int weight) {
+        int previousWeight = setEdge(source, target, weight);
+        assert repOk(source, target);
+        return previousWeight;
+    }
+
+    // set() without the rep check, so batches can check once at the end
+    private int setEdge(L source, L target, int weight) {
         if (weight < 0) {
             throw new IllegalArgumentException("Weight cannot be negative");
         }
 
-        if (!vertices.contains(source) || !vertices.contains(target)) {
-            throw new IllegalArgumentException("Source or target vertex does not exist");
-        }
+        source = symbols.intern(source);
+        target = symbols.intern(target);
+        addVertex(source);
+        addVertex(target);
 
-        Map<String, Integer> sourceEdges = edges.get(source);
+        Map<L, Integer> sourceEdges = edges.get(source);
         int previousWeight = sourceEdges.getOrDefault(target, 0);
-        
+
         if (weight == 0) {
             sourceEdges.remove(target);
+            reverseEdges.get(target).remove(source);
         } else {
             sourceEdges.put(target, weight);
+            reverseEdges.get(target).put(source, weight);
         }
         return previousWeight;
     }
 
-    // 3. remove(String vertex)
-    public boolean remove(String vertex) {
+    // 3. remove(L vertex)
+    @Override
+    public boolean remove(L vertex) {
         if (!vertices.contains(vertex)) {
             return false;
         }
 
         vertices.remove(vertex);
-        edges.remove(vertex);
+        Map<L, Integer> outgoing = edges.remove(vertex);
+        Map<L, Integer> incoming = reverseEdges.remove(vertex);
 
-        for (Map<String, Integer> targetEdges : edges.values()) {
-            targetEdges.remove(vertex);
+        for (L target : outgoing.keySet()) {
+            Map<L, Integer> targetSources = reverseEdges.get(target);
+            if (targetSources != null) {
+                targetSources.remove(vertex);
+            }
+        }
+        for (L source : incoming.keySet()) {
+            Map<L, Integer> sourceTargets = edges.get(source);
+            if (sourceTargets != null) {
+                sourceTargets.remove(vertex);
+            }
         }
 
+        assert repOk(vertex, vertex) && (!validation.checksTouched()
+                || (verticesOk(outgoing.keySet()) && verticesOk(incoming.keySet())));
         return true;
     }
 
+    // Drops the maps of every removed vertex whole and edits only the maps of
+    // neighbors that stay, checking the rep once for the batch.
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        Set<L> removed = new HashSet<>();
+        for (L vertex : vertices) {
+            if (this.vertices.remove(vertex)) removed.add(vertex);
+        }
+        Set<L> touched = new HashSet<>();
+        for (L vertex : removed) {
+            for (L target : edges.remove(vertex).keySet()) {
+                if (removed.contains(target)) continue;
+                reverseEdges.get(target).remove(vertex);
+                touched.add(target);
+            }
+            for (L source : reverseEdges.remove(vertex).keySet()) {
+                if (removed.contains(source)) continue;
+                edges.get(source).remove(vertex);
+                touched.add(source);
+            }
+        }
+        assert repOk() && (!validation.checksTouched() || verticesOk(touched));
+        return !removed.isEmpty();
+    }
+
+    // The outer maps keep their peak size after removals; this rebuilds them
+    // at the size of what is left, and an owned symbol table with only the
+    // vertices left. The per-vertex maps are kept, because sources() and
+    // targets() are live views of them.
+    @Override
+    public void compact() {
+        edges = new HashMap<>(edges);
+        reverseEdges = new HashMap<>(reverseEdges);
+        if (ownsSymbols) symbols = SymbolTable.of(vertices);
+        assert repOk();
+    }
+
+    // For tests: the number of labels in the symbol table.
+    int symbolCount() {
+        return symbols.size();
+    }
+
+    // Bulk mutations, checking the rep once per batch
+    @Override
+    public int increment(L source, L target, int delta) {
+        int previousWeight = incrementEdge(source, target, delta);
+        assert repOk(source, target);
+        return previousWeight;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends L> vertices) {
+        boolean changed = false;
+        for (L vertex : vertices) {
+            changed |= addVertex(vertex);
+        }
+        assert repOk() && (!validation.checksTouched() || verticesOk(vertices));
+        return changed;
+    }
+
+    @Override
+    public void setAll(Map<Pair<L>, Integer> weights) {
+        for (Map.Entry<Pair<L>, Integer> edge : weights.entrySet()) {
+            setEdge(edge.getKey().getSource(), edge.getKey().getTarget(), edge.getValue());
+        }
+        assert repOk() && (!validation.checksTouched() || pairsOk(weights.keySet()));
+    }
+
+    @Override
+    public void mergeWeights(Map<Pair<L>, Integer> deltas) {
+        for (Map.Entry<Pair<L>, Integer> edge : deltas.entrySet()) {
+            incrementEdge(edge.getKey().getSource(), edge.getKey().getTarget(), edge.getValue());
+        }
+        assert repOk() && (!validation.checksTouched() || pairsOk(deltas.keySet()));
+    }
+
+    private int incrementEdge(L source, L target, int delta) {
+        Map<L, Integer> sourceEdges = edges.get(source);
+        int previousWeight = sourceEdges == null ? 0 : sourceEdges.getOrDefault(target, 0);
+        if (previousWeight + delta < 0) {
+            throw new IllegalArgumentException("Weight cannot be negative");
+        }
+        setEdge(source, target, previousWeight + delta);
+        return previousWeight;
+    }
+
     // 4. vertices()
-    public Set<String> vertices() {
+    @Override
+    public Set<L> vertices() {
         return Collections.unmodifiableSet(vertices);
     }
 
-    // 5. sources(String target)
-    public Map<String, Integer> sources(String target) {
-        Map<String, Integer> sources = new HashMap<>();
-        for (String vertex : vertices) {
-            Integer weight = edges.get(vertex).get(target);
-            if (weight != null) {
-                sources.put(vertex, weight);
-            }
+    // 5. sources(L target)
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> sources = reverseEdges.get(target);
+        return sources == null ? Collections.emptyMap() : Collections.unmodifiableMap(sources);
+    }
+
+    // 6. targets(L source)
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> targets = edges.get(source);
+        return targets == null ? Collections.emptyMap() : Collections.unmodifiableMap(targets);
+    }
+
+    // forEachTarget, forEachSource, weight and degrees read the adjacency maps directly
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        visit(edges.get(source), visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        visit(reverseEdges.get(target), visitor);
+    }
+
+    private static <L> void visit(Map<L, Integer> neighbors, ObjIntConsumer<? super L> visitor) {
+        if (neighbors == null) return;
+        for (Map.Entry<L, Integer> edge : neighbors.entrySet()) {
+            visitor.accept(edge.getKey(), edge.getValue());
         }
-        return sources;
     }
 
-    // 6. targets(String source)
-    public Map<String, Integer> targets(String source) {
-        return Collections.unmodifiableMap(edges.get(source));
+    @Override
+    public int weight(L source, L target) {
+        Map<L, Integer> targets = edges.get(source);
+        Integer weight = targets == null ? null : targets.get(target);
+        return weight == null ? 0 : weight;
+    }
+
+    @Override
+    public int outDegree(L source) {
+        Map<L, Integer> targets = edges.get(source);
+        return targets == null ? 0 : targets.size();
+    }
+
+    @Override
+    public int inDegree(L target) {
+        Map<L, Integer> sources = reverseEdges.get(target);
+        return sources == null ? 0 : sources.size();
     }
 
     // 7. toString()
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("Vertices:\n");
-        for (String vertex : vertices) {
+        for (L vertex : vertices) {
             sb.append("  ").append(vertex).append(" -> ").append(edges.get(vertex)).append("\n");
         }
         return sb.toString();
@@ -92,29 +270,103 @@ public class ConcreteVerticesGraph {
 
     // 8. checkRep()
     public void checkRep() {
-        for (String vertex : vertices) {
+        int edgeCount = 0;
+        for (L vertex : vertices) {
             if (vertex == null) {
                 throw new IllegalStateException("Vertex is null");
             }
-            Map<String, Integer> vertexEdges = edges.get(vertex);
-            if (vertexEdges == null) {
+            Map<L, Integer> vertexEdges = edges.get(vertex);
+            if (vertexEdges == null || reverseEdges.get(vertex) == null) {
                 throw new IllegalStateException("Edges are null for vertex " + vertex);
             }
-            for (String target : vertexEdges.keySet()) {
+            for (Map.Entry<L, Integer> edge : vertexEdges.entrySet()) {
+                L target = edge.getKey();
                 if (!vertices.contains(target)) {
                     throw new IllegalStateException("Target vertex " + target + " does not exist");
                 }
+                if (!edge.getValue().equals(reverseEdges.get(target).get(vertex))) {
+                    throw new IllegalStateException("Edge " + vertex + " -> " + target + " is missing from the reverse index");
+                }
             }
+            edgeCount += vertexEdges.size() - reverseEdges.get(vertex).size();
         }
+        if (edgeCount != 0) {
+            throw new IllegalStateException("Reverse index holds edges that are not in the graph");
+        }
+    }
+
+    // Checks a single vertex: its rows exist, its neighbors are vertices and
+    // every edge is in both indexes; or, if it is not a vertex, that it has no
+    // rows. Costs O(degree of vertex).
+    private void checkVertex(L vertex) {
+        if (!vertices.contains(vertex)) {
+            if (edges.containsKey(vertex) || reverseEdges.containsKey(vertex)) {
+                throw new IllegalStateException("Removed vertex " + vertex + " still has edges");
+            }
+            return;
+        }
+        Map<L, Integer> outgoing = edges.get(vertex);
+        Map<L, Integer> incoming = reverseEdges.get(vertex);
+        if (outgoing == null || incoming == null) {
+            throw new IllegalStateException("Edges are null for vertex " + vertex);
+        }
+        for (Map.Entry<L, Integer> edge : outgoing.entrySet()) {
+            L target = edge.getKey();
+            if (!vertices.contains(target)) {
+                throw new IllegalStateException("Target vertex " + target + " does not exist");
+            }
+            if (!edge.getValue().equals(reverseEdges.get(target).get(vertex))) {
+                throw new IllegalStateException("Edge " + vertex + " -> " + target + " is missing from the reverse index");
+            }
+        }
+        for (Map.Entry<L, Integer> edge : incoming.entrySet()) {
+            L source = edge.getKey();
+            if (!vertices.contains(source) || !edge.getValue().equals(edges.get(source).get(vertex))) {
+                throw new IllegalStateException("Reverse edge " + source + " -> " + vertex + " is not in the graph");
+            }
+        }
+    }
+
+    // Runs checkRep() from an assert, so the O(V + E) walk only happens with
+    // -ea, and then only after the mutations graph.validation picks.
+    private boolean repOk() {
+        if (validation.checksAll(++mutations)) checkRep();
+        return true;
+    }
+
+    // repOk() for a mutation that touched only source and target, which
+    // incremental validation checks instead of the whole graph.
+    private boolean repOk(L source, L target) {
+        repOk();
+        if (validation.checksTouched()) {
+            checkVertex(source);
+            checkVertex(target);
+        }
+        return true;
+    }
+
+    private boolean verticesOk(Collection<? extends L> touched) {
+        for (L vertex : touched) {
+            checkVertex(vertex);
+        }
+        return true;
+    }
+
+    private boolean pairsOk(Set<Pair<L>> touched) {
+        for (Pair<L> edge : touched) {
+            checkVertex(edge.getSource());
+            checkVertex(edge.getTarget());
+        }
+        return true;
     }
 
     // Edge Class (Nested within ConcreteVerticesGraph)
     public class Edge {
-        private final String source;
-        private final String target;
+        private final L source;
+        private final L target;
         private final int weight;
 
-        public Edge(String source, String target, int weight) {
+        public Edge(L source, L target, int weight) {
             if (source == null || target == null || weight < 0) {
                 throw new IllegalArgumentException("Invalid edge parameters");
             }
@@ -123,11 +375,11 @@ public class ConcreteVerticesGraph {
             this.weight = weight;
         }
 
-        public String getSource() {
+        public L getSource() {
             return source;
         }
 
-        public String getTarget() {
+        public L getTarget() {
             return target;
         }
 
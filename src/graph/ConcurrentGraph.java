@@ -0,0 +1,230 @@
+package graph;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A thread-safe Graph for many concurrent readers and a few writers.
+ *
+ * <p>Reads take no locks: every vertex keeps its outgoing and incoming edges
+ * in ConcurrentHashMaps, and sources()/targets() return read-only live views
+ * of them. Edge writes lock only the stripe that owns the source vertex, so
+ * set() and increment() on the same edge are atomic with respect to each
+ * other while writers of unrelated vertices proceed in parallel. Removing a
+ * vertex takes an exclusive lock, because it edits the rows of all its
+ * neighbors; so does freeze(), so that a snapshot sees no write half done.
+ *
+ * <p>A new edge is published in sources() before targets(), and a removed
+ * edge leaves targets() before sources(). So a reader that finds t in
+ * targets(s) will then also find s in sources(t), unless the edge is removed
+ * in between.
+ */
+public class ConcurrentGraph<L> implements Graph<L> {
+
+    private static final int STRIPES = 64;
+
+    private final ConcurrentHashMap<L, Adjacency<L>> adjacency = new ConcurrentHashMap<>();
+    private final ReadWriteLock structure = new ReentrantReadWriteLock();
+    private final Object[] stripes = new Object[STRIPES];
+
+    public ConcurrentGraph() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    private static final class Adjacency<L> {
+        final ConcurrentHashMap<L, Integer> out = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<L, Integer> in = new ConcurrentHashMap<>();
+    }
+
+    private Object stripe(L source) {
+        int h = source.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        structure.readLock().lock();
+        try {
+            return adjacency.putIfAbsent(vertex, new Adjacency<>()) == null;
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+        structure.readLock().lock();
+        try {
+            synchronized (stripe(source)) {
+                Adjacency<L> from = adjacency.computeIfAbsent(source, k -> new Adjacency<>());
+                Adjacency<L> to = adjacency.computeIfAbsent(target, k -> new Adjacency<>());
+                return write(from, to, source, target, weight);
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+        structure.readLock().lock();
+        try {
+            synchronized (stripe(source)) {
+                Adjacency<L> from = adjacency.computeIfAbsent(source, k -> new Adjacency<>());
+                Adjacency<L> to = adjacency.computeIfAbsent(target, k -> new Adjacency<>());
+                int previous = from.out.getOrDefault(target, 0);
+                if (previous + delta < 0) throw new IllegalArgumentException("Weight cannot be negative");
+                return write(from, to, source, target, previous + delta);
+            }
+        } finally {
+            structure.readLock().unlock();
+        }
+    }
+
+    // Caller holds the stripe of source.
+    private int write(Adjacency<L> from, Adjacency<L> to, L source, L target, int weight) {
+        Integer previous;
+        if (weight > 0) {
+            to.in.put(source, weight);
+            previous = from.out.put(target, weight);
+        } else {
+            previous = from.out.remove(target);
+            to.in.remove(source);
+        }
+        return previous == null ? 0 : previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        structure.writeLock().lock();
+        try {
+            return detach(vertex);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    // Copies the graph under the exclusive lock, so writers wait and the
+    // snapshot is one consistent state rather than a mix of before and after.
+    @Override
+    public FrozenGraph<L> freeze() {
+        structure.writeLock().lock();
+        try {
+            return FrozenGraph.snapshot(this);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    // Takes the exclusive lock once for the whole batch.
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        structure.writeLock().lock();
+        try {
+            boolean changed = false;
+            for (L vertex : vertices) {
+                changed |= detach(vertex);
+            }
+            return changed;
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the exclusive lock. Each edge leaves targets() before
+    // sources(), as the class promises, and the vertex leaves the graph only
+    // once it has no edges left, so readers never find it through a neighbor
+    // after it is gone.
+    private boolean detach(L vertex) {
+        Adjacency<L> removed = adjacency.get(vertex);
+        if (removed == null) return false;
+        for (L target : removed.out.keySet()) {
+            removed.out.remove(target);
+            Adjacency<L> to = adjacency.get(target);
+            if (to != null) to.in.remove(vertex);
+        }
+        for (L source : removed.in.keySet()) {
+            Adjacency<L> from = adjacency.get(source);
+            if (from != null) from.out.remove(vertex);
+            removed.in.remove(source);
+        }
+        adjacency.remove(vertex);
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(adjacency.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Adjacency<L> to = adjacency.get(target);
+        return to == null ? Collections.emptyMap() : Collections.unmodifiableMap(to.in);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Adjacency<L> from = adjacency.get(source);
+        return from == null ? Collections.emptyMap() : Collections.unmodifiableMap(from.out);
+    }
+
+    // Like the views, these read the live maps without locking, so a visit
+    // made during concurrent writes sees each edge at most once but may miss
+    // edges written after it started.
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        Adjacency<L> from = adjacency.get(source);
+        if (from != null) visit(from.out, visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        Adjacency<L> to = adjacency.get(target);
+        if (to != null) visit(to.in, visitor);
+    }
+
+    private static <L> void visit(Map<L, Integer> neighbors, ObjIntConsumer<? super L> visitor) {
+        for (Map.Entry<L, Integer> edge : neighbors.entrySet()) {
+            visitor.accept(edge.getKey(), edge.getValue());
+        }
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        Adjacency<L> from = adjacency.get(source);
+        Integer weight = from == null ? null : from.out.get(target);
+        return weight == null ? 0 : weight;
+    }
+
+    @Override
+    public int outDegree(L source) {
+        Adjacency<L> from = adjacency.get(source);
+        return from == null ? 0 : from.out.size();
+    }
+
+    @Override
+    public int inDegree(L target) {
+        Adjacency<L> to = adjacency.get(target);
+        return to == null ? 0 : to.in.size();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(adjacency.keySet()).append("\nEdges:\n");
+        for (Map.Entry<L, Adjacency<L>> row : adjacency.entrySet()) {
+            for (Map.Entry<L, Integer> edge : row.getValue().out.entrySet()) {
+                sb.append("  ").append(row.getKey()).append(" -> ").append(edge.getKey())
+                        .append(" (").append(edge.getValue()).append(")\n");
+            }
+        }
+        return sb.toString();
+    }
+}
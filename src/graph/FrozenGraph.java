@@ -0,0 +1,429 @@
+package graph;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * An immutable, array-backed snapshot of a Graph, for read-mostly serving.
+ *
+ * <p>Vertices are numbered densely, and both directions of adjacency are
+ * stored as CSR (compressed sparse row) int arrays with each row sorted by
+ * neighbor ID. The read-only maps returned by sources() and targets() are
+ * allocated once, when the snapshot is taken, and shared by every caller.
+ * Each row's edges are also ranked by weight once, so topTargets() and
+ * topSources() take O(k).
+ * All fields are final and never change, so any number of threads can read
+ * a FrozenGraph without synchronization.
+ *
+ * <p>Mutators throw UnsupportedOperationException. To change a frozen graph,
+ * thaw() it into a mutable copy, edit the copy, and freeze() that copy into
+ * its successor.
+ */
+public final class FrozenGraph<L> implements Graph<L> {
+
+    private final Map<L, Integer> ids;
+    private final Object[] labels;
+    private final int[] outOffsets;
+    private final int[] outNeighbors;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inNeighbors;
+    private final int[] inWeights;
+    // positions of each row's edges, heaviest first, for top-k queries
+    private final int[] outByWeight;
+    private final int[] inByWeight;
+    private final Set<L> vertices;
+    private final List<Map<L, Integer>> targetViews;
+    private final List<Map<L, Integer>> sourceViews;
+
+    // Abstraction function:
+    //   vertex labels[id] for every id, and an edge id -> outNeighbors[i] with
+    //   weight outWeights[i] for every i in [outOffsets[id], outOffsets[id + 1])
+    // Rep invariant:
+    //   ids is the inverse of labels; every row is sorted by neighbor ID and has
+    //   positive weights; the in arrays hold exactly the reverse of the out arrays
+    private void checkRep() {
+        assert ids.size() == labels.length : "Every label should have an ID";
+        assert outOffsets[labels.length] == inOffsets[labels.length] : "Both directions should hold the same edges";
+    }
+
+    /**
+     * Takes a snapshot of graph's current vertices and edges, through
+     * graph.freeze() so that a graph with concurrent writers can take it
+     * under its own lock.
+     */
+    public static <L> FrozenGraph<L> of(Graph<L> graph) {
+        return graph instanceof FrozenGraph ? (FrozenGraph<L>) graph : graph.freeze();
+    }
+
+    // Copies graph as Graph.freeze() does by default. The vertices are copied
+    // to an array first, and targets that are not among them are skipped, so a
+    // graph that changes during the copy cannot break the snapshot's rep; the
+    // snapshot is then only as consistent as the graph's views.
+    static <L> FrozenGraph<L> snapshot(Graph<L> graph) {
+        return new FrozenGraph<>(graph);
+    }
+
+    private FrozenGraph(Graph<L> graph) {
+        labels = graph.vertices().toArray();
+        int n = labels.length;
+        ids = new HashMap<>(n * 4 / 3 + 1);
+        for (int id = 0; id < n; id++) {
+            @SuppressWarnings("unchecked")
+            L vertex = (L) labels[id];
+            ids.put(vertex, id);
+        }
+
+        // Out rows come from targets(); in rows are derived from them, so the
+        // two directions agree even if the source graph's views did not.
+        outOffsets = new int[n + 1];
+        inOffsets = new int[n + 1];
+        List<int[]> rows = new ArrayList<>(n);
+        for (int id = 0; id < n; id++) {
+            @SuppressWarnings("unchecked")
+            L vertex = (L) labels[id];
+            Map<L, Integer> targets = graph.targets(vertex);
+            long[] row = new long[targets.size()];
+            int k = 0;
+            for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                Integer target = ids.get(edge.getKey());
+                if (target == null || k == row.length) continue;
+                row[k++] = ((long) target << 32) | edge.getValue();
+                inOffsets[target + 1]++;
+            }
+            if (k < row.length) row = Arrays.copyOf(row, k);
+            Arrays.sort(row);
+            int[] packed = new int[row.length * 2];
+            for (int i = 0; i < row.length; i++) {
+                packed[2 * i] = (int) (row[i] >>> 32);
+                packed[2 * i + 1] = (int) row[i];
+            }
+            rows.add(packed);
+            outOffsets[id + 1] = outOffsets[id] + row.length;
+        }
+        for (int id = 0; id < n; id++) {
+            inOffsets[id + 1] += inOffsets[id];
+        }
+
+        int edges = outOffsets[n];
+        outNeighbors = new int[edges];
+        outWeights = new int[edges];
+        inNeighbors = new int[edges];
+        inWeights = new int[edges];
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        for (int id = 0; id < n; id++) {
+            int[] packed = rows.get(id);
+            for (int i = 0; i < packed.length / 2; i++) {
+                int target = packed[2 * i];
+                int weight = packed[2 * i + 1];
+                outNeighbors[outOffsets[id] + i] = target;
+                outWeights[outOffsets[id] + i] = weight;
+                // sources are visited in increasing ID order, so in rows come out sorted
+                inNeighbors[inFill[target]] = id;
+                inWeights[inFill[target]++] = weight;
+            }
+            rows.set(id, null);
+        }
+
+        outByWeight = rankByWeight(outOffsets, outWeights, n);
+        inByWeight = rankByWeight(inOffsets, inWeights, n);
+
+        vertices = Collections.unmodifiableSet(ids.keySet());
+        List<Map<L, Integer>> targetViews = new ArrayList<>(n);
+        List<Map<L, Integer>> sourceViews = new ArrayList<>(n);
+        for (int id = 0; id < n; id++) {
+            targetViews.add(new RowView(outOffsets, outNeighbors, outWeights, id));
+            sourceViews.add(new RowView(inOffsets, inNeighbors, inWeights, id));
+        }
+        this.targetViews = targetViews;
+        this.sourceViews = sourceViews;
+        checkRep();
+    }
+
+    // Returns, for each row, the positions of its edges ordered heaviest first,
+    // equal weights by neighbor ID.
+    private static int[] rankByWeight(int[] offsets, int[] weights, int n) {
+        int[] ranked = new int[weights.length];
+        for (int id = 0; id < n; id++) {
+            int start = offsets[id];
+            long[] row = new long[offsets[id + 1] - start];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = ((long) (Integer.MAX_VALUE - weights[start + i]) << 32) | (start + i);
+            }
+            Arrays.sort(row);
+            for (int i = 0; i < row.length; i++) {
+                ranked[start + i] = (int) row[i];
+            }
+        }
+        return ranked;
+    }
+
+    /** Returns a new mutable copy of this graph, built with Graph.empty(). */
+    public Graph<L> thaw() {
+        Graph<L> copy = Graph.empty();
+        copy.addAll(vertices);
+        Map<Pair<L>, Integer> weights = new HashMap<>();
+        for (int id = 0; id < labels.length; id++) {
+            for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+                weights.put(new Pair<>(label(id), label(outNeighbors[i])), outWeights[i]);
+            }
+        }
+        copy.setAll(weights);
+        return copy;
+    }
+
+    @Override
+    public FrozenGraph<L> freeze() {
+        return this;
+    }
+
+    // Primitive access for algorithms that run over the arrays directly, such as
+    // PathFinder. Vertex IDs are 0 to vertexCount() - 1; the outgoing edges of
+    // vertex id are the edge indexes [outStart(id), outStart(id + 1)), sorted by
+    // neighbor ID, and likewise for incoming edges.
+
+    /** Returns the number of vertices. */
+    public int vertexCount() {
+        return labels.length;
+    }
+
+    /** Returns the ID of vertex, or -1 if it is not in the graph. */
+    public int idOf(L vertex) {
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    /** Returns the vertex with the given ID. */
+    @SuppressWarnings("unchecked")
+    public L label(int id) {
+        return (L) labels[id];
+    }
+
+    /** Returns the index of the first outgoing edge of id; id may be vertexCount(). */
+    public int outStart(int id) {
+        return outOffsets[id];
+    }
+
+    /** Returns the target ID of an outgoing edge index. */
+    public int outTarget(int edge) {
+        return outNeighbors[edge];
+    }
+
+    /** Returns the weight of an outgoing edge index. */
+    public int outWeight(int edge) {
+        return outWeights[edge];
+    }
+
+    /** Returns the index of the first incoming edge of id; id may be vertexCount(). */
+    public int inStart(int id) {
+        return inOffsets[id];
+    }
+
+    /** Returns the source ID of an incoming edge index. */
+    public int inSource(int edge) {
+        return inNeighbors[edge];
+    }
+
+    /** Returns the weight of an incoming edge index. */
+    public int inWeight(int edge) {
+        return inWeights[edge];
+    }
+
+    /** Returns the outgoing edge index from source to target, or -1 if there is none. */
+    public int findEdge(int source, int target) {
+        int i = Arrays.binarySearch(outNeighbors, outOffsets[source], outOffsets[source + 1], target);
+        return i < 0 ? -1 : i;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends L> vertices) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public void setAll(Map<Pair<L>, Integer> weights) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public void mergeWeights(Map<Pair<L>, Integer> deltas) {
+        throw new UnsupportedOperationException("FrozenGraph is immutable; thaw() it first");
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return vertices;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Integer id = ids.get(target);
+        return id == null ? Collections.emptyMap() : sourceViews.get(id);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Integer id = ids.get(source);
+        return id == null ? Collections.emptyMap() : targetViews.get(id);
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        visit(ids.get(source), outOffsets, outNeighbors, outWeights, visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        visit(ids.get(target), inOffsets, inNeighbors, inWeights, visitor);
+    }
+
+    private void visit(Integer id, int[] offsets, int[] neighbors, int[] weights, ObjIntConsumer<? super L> visitor) {
+        if (id == null) return;
+        for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+            visitor.accept(label(neighbors[i]), weights[i]);
+        }
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        Integer s = ids.get(source);
+        Integer t = ids.get(target);
+        int edge = s == null || t == null ? -1 : findEdge(s, t);
+        return edge < 0 ? 0 : outWeights[edge];
+    }
+
+    @Override
+    public int outDegree(L source) {
+        Integer id = ids.get(source);
+        return id == null ? 0 : outOffsets[id + 1] - outOffsets[id];
+    }
+
+    @Override
+    public int inDegree(L target) {
+        Integer id = ids.get(target);
+        return id == null ? 0 : inOffsets[id + 1] - inOffsets[id];
+    }
+
+    @Override
+    public Map<L, Integer> topTargets(L source, int k) {
+        return top(ids.get(source), k, outOffsets, outNeighbors, outWeights, outByWeight);
+    }
+
+    @Override
+    public Map<L, Integer> topSources(L target, int k) {
+        return top(ids.get(target), k, inOffsets, inNeighbors, inWeights, inByWeight);
+    }
+
+    private Map<L, Integer> top(Integer id, int k, int[] offsets, int[] neighbors, int[] weights, int[] byWeight) {
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative");
+        int n = id == null ? 0 : Math.min(k, offsets[id + 1] - offsets[id]);
+        if (n == 0) return Collections.emptyMap();
+        Map<L, Integer> top = new LinkedHashMap<>(n * 4 / 3 + 1);
+        for (int i = offsets[id]; i < offsets[id] + n; i++) {
+            top.put(label(neighbors[byWeight[i]]), weights[byWeight[i]]);
+        }
+        return Collections.unmodifiableMap(top);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(vertices).append("\nEdges:\n");
+        for (int id = 0; id < labels.length; id++) {
+            for (int i = outOffsets[id]; i < outOffsets[id + 1]; i++) {
+                sb.append("  ").append(labels[id]).append(" -> ").append(labels[outNeighbors[i]])
+                        .append(" (").append(outWeights[i]).append(")\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    // Read-only map over one CSR row.
+    private final class RowView extends AbstractMap<L, Integer> {
+        private final int[] offsets;
+        private final int[] neighbors;
+        private final int[] weights;
+        private final int vertex;
+
+        RowView(int[] offsets, int[] neighbors, int[] weights, int vertex) {
+            this.offsets = offsets;
+            this.neighbors = neighbors;
+            this.weights = weights;
+            this.vertex = vertex;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            Integer id = ids.get(key);
+            if (id == null) return null;
+            int i = Arrays.binarySearch(neighbors, offsets[vertex], offsets[vertex + 1], id);
+            return i < 0 ? null : weights[i];
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return offsets[vertex + 1] - offsets[vertex];
+        }
+
+        @Override
+        public Set<Map.Entry<L, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<L, Integer>>() {
+                @Override
+                public int size() {
+                    return RowView.this.size();
+                }
+
+                @Override
+                public Iterator<Map.Entry<L, Integer>> iterator() {
+                    return new Iterator<Map.Entry<L, Integer>>() {
+                        private int i = offsets[vertex];
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < offsets[vertex + 1];
+                        }
+
+                        @Override
+                        public Map.Entry<L, Integer> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Map.Entry<L, Integer> entry =
+                                    new AbstractMap.SimpleImmutableEntry<>(label(neighbors[i]), weights[i]);
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package graph;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.ObjIntConsumer;
 
 public interface Graph<L> {
 
@@ -27,4 +29,113 @@ public interface Graph<L> {
 
     // Returns a map of target vertices and their corresponding edge weights for a given source
     Map<L, Integer> targets(L source);
+
+    // Calls visitor with each target of source and the weight of the edge to it,
+    // in an unspecified order that repeats while the graph is unchanged; does
+    // nothing if source is not a vertex. The visitor must not modify the graph.
+    // Implementations visit their own storage, without building a map.
+    default void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        for (Map.Entry<L, Integer> edge : targets(source).entrySet()) {
+            visitor.accept(edge.getKey(), edge.getValue());
+        }
+    }
+
+    // Calls visitor with each source of target and the weight of its edge, as
+    // forEachTarget() does for targets.
+    default void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        for (Map.Entry<L, Integer> edge : sources(target).entrySet()) {
+            visitor.accept(edge.getKey(), edge.getValue());
+        }
+    }
+
+    // Returns the weight of the edge from source to target, or 0 if there is none.
+    default int weight(L source, L target) {
+        Integer weight = targets(source).get(target);
+        return weight == null ? 0 : weight;
+    }
+
+    // Returns the number of targets of source, or 0 if source is not a vertex.
+    default int outDegree(L source) {
+        return targets(source).size();
+    }
+
+    // Returns the number of sources of target, or 0 if target is not a vertex.
+    default int inDegree(L target) {
+        return sources(target).size();
+    }
+
+    // Returns up to k of source's targets with the highest weights, heaviest first,
+    // as a read-only map. Ties are listed in an unspecified order that repeats
+    // while the graph is unchanged. Throws IllegalArgumentException if k < 0.
+    default Map<L, Integer> topTargets(L source, int k) {
+        return Ranking.top(targets(source), k);
+    }
+
+    // Returns up to k of target's sources with the highest weights, heaviest first,
+    // as topTargets() does for targets.
+    default Map<L, Integer> topSources(L target, int k) {
+        return Ranking.top(sources(target), k);
+    }
+
+    // Returns an immutable, array-backed snapshot of this graph that any number of
+    // threads can read without synchronization; see FrozenGraph.
+    default FrozenGraph<L> freeze() {
+        return FrozenGraph.snapshot(this);
+    }
+
+    // Adds delta to the weight of the edge from source to target, creating the edge
+    // (and its vertices) if needed and removing it if the weight drops to 0.
+    // Returns the previous weight; throws IllegalArgumentException if the weight
+    // would become negative.
+    default int increment(L source, L target, int delta) {
+        int previous = targets(source).getOrDefault(target, 0);
+        if (previous + delta < 0) {
+            throw new IllegalArgumentException("Weight cannot be negative");
+        }
+        set(source, target, previous + delta);
+        return previous;
+    }
+
+    // Adds every vertex in the collection; returns true if any of them was new.
+    // Implementations check their invariants once per call, not once per vertex.
+    default boolean addAll(Collection<? extends L> vertices) {
+        boolean changed = false;
+        for (L vertex : vertices) {
+            changed |= add(vertex);
+        }
+        return changed;
+    }
+
+    // Removes every vertex in the collection and its edges, as remove() would one
+    // at a time; returns true if any of them was a vertex. Implementations make
+    // one pass over the removed edges and check their invariants once per call.
+    default boolean removeAll(Collection<? extends L> vertices) {
+        boolean changed = false;
+        for (L vertex : vertices) {
+            changed |= remove(vertex);
+        }
+        return changed;
+    }
+
+    // Gives back memory that removals left allocated but unused, without
+    // changing the graph. Does nothing unless the implementation holds on to
+    // such memory; call it after a large batch of removals.
+    default void compact() {
+    }
+
+    // Sets the weight of every edge in the map, as set() would one at a time.
+    // Implementations check their invariants once per call, not once per edge.
+    default void setAll(Map<Pair<L>, Integer> weights) {
+        for (Map.Entry<Pair<L>, Integer> edge : weights.entrySet()) {
+            set(edge.getKey().getSource(), edge.getKey().getTarget(), edge.getValue());
+        }
+    }
+
+    // Adds every delta in the map to its edge, as increment() would one at a time.
+    // Implementations check their invariants once per call, not once per edge.
+    default void mergeWeights(Map<Pair<L>, Integer> deltas) {
+        for (Map.Entry<Pair<L>, Integer> edge : deltas.entrySet()) {
+            increment(edge.getKey().getSource(), edge.getKey().getTarget(), edge.getValue());
+        }
+    }
 }
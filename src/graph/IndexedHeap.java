@@ -0,0 +1,97 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of int vertex IDs keyed by long priorities, with
+ * decrease-key, for Dijkstra-style searches. IDs must be in [0, capacity).
+ * Uses no objects per entry, and clear() costs O(size), so one heap can be
+ * reused across many searches.
+ */
+final class IndexedHeap {
+
+    private final int[] heap;
+    private final int[] position;
+    private final long[] keys;
+    private int size = 0;
+
+    // Rep invariant:
+    //   heap[0, size) is a min-heap by keys; position[heap[i]] == i for every i < size,
+    //   and position[v] == -1 for every v not in the heap
+    IndexedHeap(int capacity) {
+        heap = new int[capacity];
+        position = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(position, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the smallest key; the heap must not be empty. */
+    long minKey() {
+        return keys[heap[0]];
+    }
+
+    /** Inserts id with key, or lowers its key if it is already in the heap with a larger one. */
+    void push(int id, long key) {
+        int i = position[id];
+        if (i < 0) {
+            i = size++;
+            heap[i] = id;
+            position[id] = i;
+        } else if (key >= keys[id]) {
+            return;
+        }
+        keys[id] = key;
+        siftUp(i);
+    }
+
+    /** Removes and returns the ID with the smallest key; the heap must not be empty. */
+    int pop() {
+        int top = heap[0];
+        position[top] = -1;
+        if (--size > 0) {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int i) {
+        int id = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[heap[parent]] <= keys[id]) break;
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+
+    private void siftDown(int i) {
+        int id = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) child++;
+            if (keys[heap[child]] >= keys[id]) break;
+            heap[i] = heap[child];
+            position[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = id;
+        position[id] = i;
+    }
+}
@@ -0,0 +1,307 @@
+package graph;
+
+import graph.metrics.LatencyHistogram;
+import graph.metrics.Metrics;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A Graph that forwards every call to another Graph and records, in a Metrics
+ * registry, how long each call took. Histograms are named after the
+ * operation, as in "graph.set" or "graph.targets"; their counts are the call
+ * counts. The counters "graph.targets.entries" and "graph.sources.entries"
+ * add up the sizes of the maps returned, so dividing by the call count gives
+ * the average fan-out callers scan, and likewise for the top* queries and
+ * the forEach* visits. A visit's latency includes the visitor's own time.
+ *
+ * <p>Only calls that return normally are recorded. While the registry is
+ * disabled each call costs the delegate's call plus one volatile read. The
+ * wrapper is as thread-safe as the graph it wraps.
+ */
+public class InstrumentedGraph<L> implements Graph<L> {
+
+    private final Graph<L> delegate;
+    private final Metrics metrics;
+
+    private final LatencyHistogram add;
+    private final LatencyHistogram set;
+    private final LatencyHistogram remove;
+    private final LatencyHistogram vertices;
+    private final LatencyHistogram sources;
+    private final LatencyHistogram targets;
+    private final LatencyHistogram topSources;
+    private final LatencyHistogram topTargets;
+    private final LatencyHistogram increment;
+    private final LatencyHistogram addAll;
+    private final LatencyHistogram removeAll;
+    private final LatencyHistogram compact;
+    private final LatencyHistogram setAll;
+    private final LatencyHistogram mergeWeights;
+    private final LatencyHistogram freeze;
+    private final LatencyHistogram forEachSource;
+    private final LatencyHistogram forEachTarget;
+    private final LatencyHistogram weight;
+    private final LatencyHistogram inDegree;
+    private final LatencyHistogram outDegree;
+    private final LongAdder sourceEntries;
+    private final LongAdder targetEntries;
+    private final LongAdder topSourceEntries;
+    private final LongAdder topTargetEntries;
+    private final LongAdder forEachSourceEntries;
+    private final LongAdder forEachTargetEntries;
+
+    /** Wraps delegate with a new, enabled registry. */
+    public InstrumentedGraph(Graph<L> delegate) {
+        this(delegate, new Metrics(true));
+    }
+
+    /** Wraps delegate, recording into metrics whenever it is enabled. */
+    public InstrumentedGraph(Graph<L> delegate, Metrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+        add = metrics.histogram("graph.add");
+        set = metrics.histogram("graph.set");
+        remove = metrics.histogram("graph.remove");
+        vertices = metrics.histogram("graph.vertices");
+        sources = metrics.histogram("graph.sources");
+        targets = metrics.histogram("graph.targets");
+        topSources = metrics.histogram("graph.topSources");
+        topTargets = metrics.histogram("graph.topTargets");
+        increment = metrics.histogram("graph.increment");
+        addAll = metrics.histogram("graph.addAll");
+        removeAll = metrics.histogram("graph.removeAll");
+        compact = metrics.histogram("graph.compact");
+        setAll = metrics.histogram("graph.setAll");
+        mergeWeights = metrics.histogram("graph.mergeWeights");
+        freeze = metrics.histogram("graph.freeze");
+        forEachSource = metrics.histogram("graph.forEachSource");
+        forEachTarget = metrics.histogram("graph.forEachTarget");
+        weight = metrics.histogram("graph.weight");
+        inDegree = metrics.histogram("graph.inDegree");
+        outDegree = metrics.histogram("graph.outDegree");
+        sourceEntries = metrics.counter("graph.sources.entries");
+        targetEntries = metrics.counter("graph.targets.entries");
+        topSourceEntries = metrics.counter("graph.topSources.entries");
+        topTargetEntries = metrics.counter("graph.topTargets.entries");
+        forEachSourceEntries = metrics.counter("graph.forEachSource.entries");
+        forEachTargetEntries = metrics.counter("graph.forEachTarget.entries");
+    }
+
+    /** Returns the registry this graph records into. */
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (!metrics.enabled()) return delegate.add(vertex);
+        long start = System.nanoTime();
+        boolean result = delegate.add(vertex);
+        add.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (!metrics.enabled()) return delegate.set(source, target, weight);
+        long start = System.nanoTime();
+        int result = delegate.set(source, target, weight);
+        set.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        if (!metrics.enabled()) return delegate.remove(vertex);
+        long start = System.nanoTime();
+        boolean result = delegate.remove(vertex);
+        remove.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        if (!metrics.enabled()) return delegate.vertices();
+        long start = System.nanoTime();
+        Set<L> result = delegate.vertices();
+        vertices.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        if (!metrics.enabled()) return delegate.sources(target);
+        long start = System.nanoTime();
+        Map<L, Integer> result = delegate.sources(target);
+        sources.record(System.nanoTime() - start);
+        sourceEntries.add(result.size());
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        if (!metrics.enabled()) return delegate.targets(source);
+        long start = System.nanoTime();
+        Map<L, Integer> result = delegate.targets(source);
+        targets.record(System.nanoTime() - start);
+        targetEntries.add(result.size());
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> topSources(L target, int k) {
+        if (!metrics.enabled()) return delegate.topSources(target, k);
+        long start = System.nanoTime();
+        Map<L, Integer> result = delegate.topSources(target, k);
+        topSources.record(System.nanoTime() - start);
+        topSourceEntries.add(result.size());
+        return result;
+    }
+
+    @Override
+    public Map<L, Integer> topTargets(L source, int k) {
+        if (!metrics.enabled()) return delegate.topTargets(source, k);
+        long start = System.nanoTime();
+        Map<L, Integer> result = delegate.topTargets(source, k);
+        topTargets.record(System.nanoTime() - start);
+        topTargetEntries.add(result.size());
+        return result;
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        if (!metrics.enabled()) {
+            delegate.forEachSource(target, visitor);
+            return;
+        }
+        long[] visited = {0};
+        long start = System.nanoTime();
+        delegate.forEachSource(target, (source, w) -> {
+            visited[0]++;
+            visitor.accept(source, w);
+        });
+        forEachSource.record(System.nanoTime() - start);
+        forEachSourceEntries.add(visited[0]);
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        if (!metrics.enabled()) {
+            delegate.forEachTarget(source, visitor);
+            return;
+        }
+        long[] visited = {0};
+        long start = System.nanoTime();
+        delegate.forEachTarget(source, (target, w) -> {
+            visited[0]++;
+            visitor.accept(target, w);
+        });
+        forEachTarget.record(System.nanoTime() - start);
+        forEachTargetEntries.add(visited[0]);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        if (!metrics.enabled()) return delegate.weight(source, target);
+        long start = System.nanoTime();
+        int result = delegate.weight(source, target);
+        weight.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public int inDegree(L target) {
+        if (!metrics.enabled()) return delegate.inDegree(target);
+        long start = System.nanoTime();
+        int result = delegate.inDegree(target);
+        inDegree.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public int outDegree(L source) {
+        if (!metrics.enabled()) return delegate.outDegree(source);
+        long start = System.nanoTime();
+        int result = delegate.outDegree(source);
+        outDegree.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+        if (!metrics.enabled()) return delegate.increment(source, target, delta);
+        long start = System.nanoTime();
+        int result = delegate.increment(source, target, delta);
+        increment.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends L> vertices) {
+        if (!metrics.enabled()) return delegate.addAll(vertices);
+        long start = System.nanoTime();
+        boolean result = delegate.addAll(vertices);
+        addAll.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        if (!metrics.enabled()) return delegate.removeAll(vertices);
+        long start = System.nanoTime();
+        boolean result = delegate.removeAll(vertices);
+        removeAll.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public void compact() {
+        if (!metrics.enabled()) {
+            delegate.compact();
+            return;
+        }
+        long start = System.nanoTime();
+        delegate.compact();
+        compact.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void setAll(Map<Pair<L>, Integer> weights) {
+        if (!metrics.enabled()) {
+            delegate.setAll(weights);
+            return;
+        }
+        long start = System.nanoTime();
+        delegate.setAll(weights);
+        setAll.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void mergeWeights(Map<Pair<L>, Integer> deltas) {
+        if (!metrics.enabled()) {
+            delegate.mergeWeights(deltas);
+            return;
+        }
+        long start = System.nanoTime();
+        delegate.mergeWeights(deltas);
+        mergeWeights.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public FrozenGraph<L> freeze() {
+        if (!metrics.enabled()) return delegate.freeze();
+        long start = System.nanoTime();
+        FrozenGraph<L> result = delegate.freeze();
+        freeze.record(System.nanoTime() - start);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
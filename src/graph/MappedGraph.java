@@ -0,0 +1,460 @@
+package graph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A read-only Graph of strings answered directly from a memory-mapped binary
+ * snapshot file.
+ *
+ * <p>The file holds a header, a string table and two CSR (compressed sparse
+ * row) adjacency sections. The string table stores every label as UTF-8,
+ * sorted by unsigned byte order, so a vertex's ID is its rank and a label is
+ * found by binary search over the mapped bytes. Each adjacency section holds
+ * offsets[V + 1], neighbors[E] and weights[E] as big-endian ints, with rows
+ * sorted by neighbor ID. Opening a snapshot maps the sections and reads
+ * nothing else, so it takes about the same time for any file size; pages are
+ * loaded by the OS as queries touch them.
+ *
+ * <p>Each section is mapped on its own, which limits a snapshot to 2^29
+ * edges and 2 GB of label bytes. Mutators throw UnsupportedOperationException.
+ */
+public final class MappedGraph implements Graph<String> {
+
+    private static final int MAGIC = 0x47524150; // "GRAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+
+    private final int vertexCount;
+    private final IntBuffer labelOffsets;
+    private final ByteBuffer labelBytes;
+    private final IntBuffer outOffsets;
+    private final IntBuffer outNeighbors;
+    private final IntBuffer outWeights;
+    private final IntBuffer inOffsets;
+    private final IntBuffer inNeighbors;
+    private final IntBuffer inWeights;
+
+    // Rep invariant:
+    //   labels are strictly increasing in unsigned byte order; every row is sorted
+    //   by neighbor ID with positive weights; in is exactly the reverse of out
+    private void checkRep() {
+        assert labelOffsets.get(0) == 0 : "String table should start at offset 0";
+        assert outOffsets.get(vertexCount) == inOffsets.get(vertexCount) : "Both directions should hold the same edges";
+    }
+
+    /**
+     * Writes a snapshot of graph to file, replacing it if it exists.
+     *
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the graph is too large for the format
+     */
+    public static void write(Graph<String> graph, Path file) throws IOException {
+        List<byte[]> labels = new ArrayList<>(graph.vertices().size());
+        for (String vertex : graph.vertices()) {
+            labels.add(vertex.getBytes(StandardCharsets.UTF_8));
+        }
+        labels.sort(MappedGraph::compareBytes);
+        int n = labels.size();
+        Map<String, Integer> ids = new HashMap<>(n * 4 / 3 + 1);
+        long labelLength = 0;
+        for (int id = 0; id < n; id++) {
+            ids.put(new String(labels.get(id), StandardCharsets.UTF_8), id);
+            labelLength += labels.get(id).length;
+        }
+        if (labelLength > Integer.MAX_VALUE) throw new IllegalArgumentException("Labels exceed 2 GB");
+
+        int[][] outRows = new int[n][];
+        int[] inDegree = new int[n];
+        long edges = 0;
+        for (int id = 0; id < n; id++) {
+            String vertex = new String(labels.get(id), StandardCharsets.UTF_8);
+            outRows[id] = packedRow(graph.targets(vertex), ids);
+            for (int i = 0; i < outRows[id].length; i += 2) {
+                inDegree[outRows[id][i]]++;
+            }
+            edges += outRows[id].length / 2;
+        }
+        if (edges > Integer.MAX_VALUE / 4) throw new IllegalArgumentException("Too many edges for one snapshot");
+
+        // in rows are filled in increasing source order, so they come out sorted
+        int[][] inRows = new int[n][];
+        int[] inFill = new int[n];
+        for (int id = 0; id < n; id++) {
+            inRows[id] = new int[inDegree[id] * 2];
+        }
+        for (int id = 0; id < n; id++) {
+            for (int i = 0; i < outRows[id].length; i += 2) {
+                int target = outRows[id][i];
+                inRows[target][inFill[target]++] = id;
+                inRows[target][inFill[target]++] = outRows[id][i + 1];
+            }
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt((int) edges);
+            int offset = 0;
+            out.writeInt(offset);
+            for (byte[] label : labels) {
+                offset += label.length;
+                out.writeInt(offset);
+            }
+            for (byte[] label : labels) {
+                out.write(label);
+            }
+            writeSection(out, outRows);
+            writeSection(out, inRows);
+        }
+    }
+
+    // Returns the row as sorted (neighbor ID, weight) pairs.
+    private static int[] packedRow(Map<String, Integer> row, Map<String, Integer> ids) {
+        long[] sorted = new long[row.size()];
+        int k = 0;
+        for (Map.Entry<String, Integer> edge : row.entrySet()) {
+            sorted[k++] = ((long) ids.get(edge.getKey()) << 32) | edge.getValue();
+        }
+        Arrays.sort(sorted);
+        int[] packed = new int[sorted.length * 2];
+        for (int i = 0; i < sorted.length; i++) {
+            packed[2 * i] = (int) (sorted[i] >>> 32);
+            packed[2 * i + 1] = (int) sorted[i];
+        }
+        return packed;
+    }
+
+    private static void writeSection(DataOutputStream out, int[][] rows) throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (int[] row : rows) {
+            offset += row.length / 2;
+            out.writeInt(offset);
+        }
+        for (int[] row : rows) {
+            for (int i = 0; i < row.length; i += 2) out.writeInt(row[i]);
+        }
+        for (int[] row : rows) {
+            for (int i = 1; i < row.length; i += 2) out.writeInt(row[i]);
+        }
+    }
+
+    /**
+     * Maps a snapshot written by write().
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedGraph(channel);
+        }
+    }
+
+    private MappedGraph(FileChannel channel) throws IOException {
+        ByteBuffer header = map(channel, 0, HEADER_BYTES);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("Not a graph snapshot");
+        }
+        vertexCount = header.getInt(8);
+        int edgeCount = header.getInt(12);
+        long position = HEADER_BYTES;
+        labelOffsets = map(channel, position, 4L * (vertexCount + 1)).asIntBuffer();
+        position += 4L * (vertexCount + 1);
+        int labelLength = labelOffsets.get(vertexCount);
+        labelBytes = map(channel, position, labelLength);
+        position += labelLength;
+        outOffsets = map(channel, position, 4L * (vertexCount + 1)).asIntBuffer();
+        position += 4L * (vertexCount + 1);
+        outNeighbors = map(channel, position, 4L * edgeCount).asIntBuffer();
+        position += 4L * edgeCount;
+        outWeights = map(channel, position, 4L * edgeCount).asIntBuffer();
+        position += 4L * edgeCount;
+        inOffsets = map(channel, position, 4L * (vertexCount + 1)).asIntBuffer();
+        position += 4L * (vertexCount + 1);
+        inNeighbors = map(channel, position, 4L * edgeCount).asIntBuffer();
+        position += 4L * edgeCount;
+        inWeights = map(channel, position, 4L * edgeCount).asIntBuffer();
+        position += 4L * edgeCount;
+        if (position != channel.size()) throw new IOException("Truncated or corrupt graph snapshot");
+        checkRep();
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long length) throws IOException {
+        if (length < 0 || position + length > channel.size()) {
+            throw new IOException("Truncated or corrupt graph snapshot");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    }
+
+    private static int compareBytes(byte[] a, byte[] b) {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++) {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return a.length - b.length;
+    }
+
+    /** Returns the ID of label, or -1 if it is not a vertex. */
+    int idOf(Object label) {
+        if (!(label instanceof String)) return -1;
+        byte[] key = ((String) label).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = vertexCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int c = compareLabel(middle, key);
+            if (c < 0) {
+                low = middle + 1;
+            } else if (c > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int compareLabel(int id, byte[] key) {
+        int start = labelOffsets.get(id);
+        int length = labelOffsets.get(id + 1) - start;
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int c = (labelBytes.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (c != 0) return c;
+        }
+        return length - key.length;
+    }
+
+    String label(int id) {
+        int start = labelOffsets.get(id);
+        byte[] bytes = new byte[labelOffsets.get(id + 1) - start];
+        ByteBuffer slice = labelBytes.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean add(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public int set(String source, String target, int weight) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public boolean remove(String vertex) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public int increment(String source, String target, int delta) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends String> vertices) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public boolean removeAll(Collection<? extends String> vertices) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public void setAll(Map<Pair<String>, Integer> weights) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public void mergeWeights(Map<Pair<String>, Integer> deltas) {
+        throw new UnsupportedOperationException("MappedGraph is read-only");
+    }
+
+    @Override
+    public Set<String> vertices() {
+        return new AbstractSet<String>() {
+            @Override
+            public boolean contains(Object o) {
+                return idOf(o) >= 0;
+            }
+
+            @Override
+            public int size() {
+                return vertexCount;
+            }
+
+            @Override
+            public Iterator<String> iterator() {
+                return new Iterator<String>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < vertexCount;
+                    }
+
+                    @Override
+                    public String next() {
+                        if (!hasNext()) throw new NoSuchElementException();
+                        return label(next++);
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public Map<String, Integer> sources(String target) {
+        int id = idOf(target);
+        return id < 0 ? Collections.emptyMap() : new RowView(inOffsets, inNeighbors, inWeights, id);
+    }
+
+    @Override
+    public Map<String, Integer> targets(String source) {
+        int id = idOf(source);
+        return id < 0 ? Collections.emptyMap() : new RowView(outOffsets, outNeighbors, outWeights, id);
+    }
+
+    // Neighbor labels are decoded from the mapped bytes as they are visited, so
+    // unlike the other graphs this allocates one String per edge.
+    @Override
+    public void forEachTarget(String source, ObjIntConsumer<? super String> visitor) {
+        visit(idOf(source), outOffsets, outNeighbors, outWeights, visitor);
+    }
+
+    @Override
+    public void forEachSource(String target, ObjIntConsumer<? super String> visitor) {
+        visit(idOf(target), inOffsets, inNeighbors, inWeights, visitor);
+    }
+
+    private void visit(int id, IntBuffer offsets, IntBuffer neighbors, IntBuffer weights,
+            ObjIntConsumer<? super String> visitor) {
+        if (id < 0) return;
+        for (int i = offsets.get(id); i < offsets.get(id + 1); i++) {
+            visitor.accept(label(neighbors.get(i)), weights.get(i));
+        }
+    }
+
+    @Override
+    public int weight(String source, String target) {
+        int s = idOf(source);
+        int t = s < 0 ? -1 : idOf(target);
+        int i = t < 0 ? -1 : find(outNeighbors, outOffsets.get(s), outOffsets.get(s + 1), t);
+        return i < 0 ? 0 : outWeights.get(i);
+    }
+
+    @Override
+    public int outDegree(String source) {
+        int id = idOf(source);
+        return id < 0 ? 0 : outOffsets.get(id + 1) - outOffsets.get(id);
+    }
+
+    @Override
+    public int inDegree(String target) {
+        int id = idOf(target);
+        return id < 0 ? 0 : inOffsets.get(id + 1) - inOffsets.get(id);
+    }
+
+    // Returns the index of id in the sorted neighbors[start, end), or -1.
+    private static int find(IntBuffer neighbors, int start, int end, int id) {
+        int low = start;
+        int high = end - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int neighbor = neighbors.get(middle);
+            if (neighbor < id) {
+                low = middle + 1;
+            } else if (neighbor > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "MappedGraph with " + vertexCount + " vertices and " + outOffsets.get(vertexCount) + " edges";
+    }
+
+    // Read-only map over one mapped CSR row; labels are decoded as they are read.
+    private final class RowView extends AbstractMap<String, Integer> {
+        private final IntBuffer neighbors;
+        private final IntBuffer weights;
+        private final int start;
+        private final int end;
+
+        RowView(IntBuffer offsets, IntBuffer neighbors, IntBuffer weights, int vertex) {
+            this.neighbors = neighbors;
+            this.weights = weights;
+            this.start = offsets.get(vertex);
+            this.end = offsets.get(vertex + 1);
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int id = idOf(key);
+            int i = id < 0 ? -1 : find(neighbors, start, end, id);
+            return i < 0 ? null : weights.get(i);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+
+        @Override
+        public Set<Map.Entry<String, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<String, Integer>>() {
+                @Override
+                public int size() {
+                    return end - start;
+                }
+
+                @Override
+                public Iterator<Map.Entry<String, Integer>> iterator() {
+                    return new Iterator<Map.Entry<String, Integer>>() {
+                        private int i = start;
+
+                        @Override
+                        public boolean hasNext() {
+                            return i < end;
+                        }
+
+                        @Override
+                        public Map.Entry<String, Integer> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Map.Entry<String, Integer> entry =
+                                    new AbstractMap.SimpleImmutableEntry<>(label(neighbors.get(i)), weights.get(i));
+                            i++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
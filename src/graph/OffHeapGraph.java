@@ -0,0 +1,630 @@
+package graph;
+
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A Graph that keeps its adjacency and weights outside the Java heap, so a
+ * graph of billions of edges adds nothing to garbage collection pauses. Only
+ * the label dictionary, a SymbolTable that maps each label to its vertex ID,
+ * lives on the heap.
+ *
+ * <p>Off-heap memory is made of fixed-size segments of direct ByteBuffers:
+ * <ul>
+ * <li>a 32-byte record per vertex ID with the heads and lengths of its two
+ *     rows and whether it is in the graph;
+ * <li>rows of neighbor IDs, each a chain of blocks whose capacities double,
+ *     so a growing row adds a block rather than copying the ones it has;
+ * <li>an open-addressing edge index from (source, target) to the weight and
+ *     the edge's positions in both rows, so lookups and updates are O(1).
+ * </ul>
+ * Rows and vertex records never move once written. Emptied blocks go on a
+ * free list per size and are reused. Only the edge index is rebuilt, into new
+ * segments, when it is three-quarters full or by compact().
+ *
+ * <p>close() frees all off-heap memory at once; the graph cannot be used
+ * afterwards. sources() and targets() return read-only copies. Not
+ * thread-safe.
+ */
+public class OffHeapGraph<L> implements Graph<L>, AutoCloseable {
+
+    private static final int DEFAULT_SEGMENT_BYTES = 1 << 20;
+
+    private static final int OUT = 0;
+    private static final int IN = 1;
+
+    // vertex record: heads of the out and in rows, their lengths, alive flag
+    private static final int RECORD = 32;
+    private static final int HEAD = 0;
+    private static final int COUNT = 16;
+    private static final int ALIVE = 24;
+
+    // row block: next (older) block, capacity, position of its first entry;
+    // then capacity int neighbor IDs
+    private static final long NULL = 0;
+    private static final int NEXT = 0;
+    private static final int CAPACITY = 8;
+    private static final int BASE = 12;
+    private static final int HEADER = 16;
+    private static final int MIN_CAPACITY = 4;
+
+    // edge index slot: key in keys; weight, out position, in position in values
+    private static final int KEY = 8;
+    private static final int VALUE = 16;
+    private static final int WEIGHT = 0;
+    private static final int OUT_POSITION = 4;
+    private static final int IN_POSITION = 8;
+
+    private final SymbolTable<L> symbols;
+    private final int segmentBytes;
+    private final int maxSizeClass;
+    private final Segments vertices;
+    private final Segments blocks;
+    private Segments keys;
+    private Segments values;
+    private final long[] freeBlocks;
+    private long top = HEADER;
+    private int records = 0;
+    private long slots = 16;
+    private long edges = 0;
+    private int live = 0;
+    private boolean closed = false;
+    private final Set<L> vertexView = new VertexSet();
+    private final Validation validation = Validation.configured();
+    private long mutations = 0;
+
+    // Abstraction function:
+    //   vertex symbols.label(id) for every id < records whose record is alive;
+    //   an edge s -> t with weight w for every index entry (s, t) -> (w, o, i)
+    // Rep invariant:
+    //   records covers every ID of an alive vertex; live counts alive records
+    //   and edges counts index entries, at most 3/4 of slots
+    //   an entry (s, t) -> (w, o, i) has w > 0, s and t alive, and t at
+    //   position o of s's out row and s at position i of t's in row; every row
+    //   entry is such an edge
+    //   a row of n entries is a chain of blocks from its head, newest first;
+    //   every block but the head is full, and a block holds positions
+    //   [base, base + capacity)
+    private void checkRep() {
+        assert !closed : "Graph is closed";
+        assert live >= 0 && live <= records : "Live count should be in range";
+        assert edges * 4 <= slots * 3 : "Edge index should be at most 3/4 full";
+        assert !validation.checksAll(++mutations) || allRowsIndexed();
+    }
+
+    // checkRep() for a mutation that touched only the edge source -> target.
+    private void checkRep(int source, int target) {
+        checkRep();
+        assert !validation.checksTouched() || (rowsIndexed(source) && rowsIndexed(target));
+    }
+
+    private boolean allRowsIndexed() {
+        long outEntries = 0;
+        for (int id = 0; id < records; id++) {
+            assert rowsIndexed(id);
+            outEntries += count(id, OUT);
+        }
+        assert outEntries == edges : "Every index entry should be in a row";
+        return true;
+    }
+
+    private boolean rowsIndexed(int id) {
+        if (id >= records) return true;
+        assert alive(id) || (count(id, OUT) == 0 && count(id, IN) == 0) : "Removed vertex should have no edges";
+        int[] targets = neighbors(id, OUT);
+        for (int position = 0; position < targets.length; position++) {
+            long slot = slot(id, targets[position]);
+            assert keys.getLong(slot * KEY) != 0 : "Row entry should be in the edge index";
+            assert values.getInt(slot * VALUE + WEIGHT) > 0 : "Edge weight should be positive";
+            assert values.getInt(slot * VALUE + OUT_POSITION) == position : "Edge should know its out position";
+        }
+        int[] sources = neighbors(id, IN);
+        for (int position = 0; position < sources.length; position++) {
+            long slot = slot(sources[position], id);
+            assert keys.getLong(slot * KEY) != 0 : "Row entry should be in the edge index";
+            assert values.getInt(slot * VALUE + IN_POSITION) == position : "Edge should know its in position";
+        }
+        return true;
+    }
+
+    public OffHeapGraph() {
+        this(new SymbolTable<>());
+    }
+
+    // Shares symbols with other graphs or callers that intern the same labels;
+    // vertex IDs are the table's IDs.
+    public OffHeapGraph(SymbolTable<L> symbols) {
+        this(symbols, DEFAULT_SEGMENT_BYTES);
+    }
+
+    // Allocates off-heap memory segmentBytes at a time, which must be a power
+    // of two of at least 1024; a row block never exceeds one segment.
+    public OffHeapGraph(SymbolTable<L> symbols, int segmentBytes) {
+        if (segmentBytes < 1024 || Integer.bitCount(segmentBytes) != 1) {
+            throw new IllegalArgumentException("Segment size must be a power of two of at least 1024");
+        }
+        this.symbols = symbols;
+        this.segmentBytes = segmentBytes;
+        int sizeClass = 0;
+        while (blockBytes(sizeClass + 1) <= segmentBytes) sizeClass++;
+        maxSizeClass = sizeClass;
+        freeBlocks = new long[maxSizeClass + 1];
+        vertices = new Segments(segmentBytes);
+        blocks = new Segments(segmentBytes);
+        blocks.ensure(top);
+        keys = new Segments(segmentBytes);
+        keys.ensure(slots * KEY);
+        values = new Segments(segmentBytes);
+        values.ensure(slots * VALUE);
+    }
+
+    /** Returns the number of bytes of off-heap memory this graph holds. */
+    public long offHeapBytes() {
+        return vertices.capacity() + blocks.capacity() + keys.capacity() + values.capacity();
+    }
+
+    /** Frees this graph's off-heap memory. Calling any other method afterwards throws IllegalStateException. */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        vertices.release();
+        blocks.release();
+        keys.release();
+        values.release();
+    }
+
+    private void ensureOpen() {
+        if (closed) throw new IllegalStateException("Graph is closed");
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        ensureOpen();
+        int id = symbols.id(vertex);
+        boolean added = addId(id);
+        checkRep(id, id);
+        return added;
+    }
+
+    private boolean addId(int id) {
+        if (id >= records) {
+            vertices.ensure((long) (id + 1) * RECORD);
+            records = id + 1;
+        }
+        if (alive(id)) return false;
+        vertices.putInt((long) id * RECORD + ALIVE, 1);
+        live++;
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        ensureOpen();
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+        int s = symbols.id(source);
+        int t = symbols.id(target);
+        int previousWeight = setEdge(s, t, weight);
+        checkRep(s, t);
+        return previousWeight;
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+        ensureOpen();
+        int s = symbols.find(source);
+        int t = symbols.find(target);
+        int previousWeight = 0;
+        if (s >= 0 && t >= 0 && alive(s) && alive(t)) {
+            long slot = slot(s, t);
+            if (keys.getLong(slot * KEY) != 0) previousWeight = values.getInt(slot * VALUE + WEIGHT);
+        }
+        if (previousWeight + delta < 0) throw new IllegalArgumentException("Weight cannot be negative");
+        s = symbols.id(source);
+        t = symbols.id(target);
+        setEdge(s, t, previousWeight + delta);
+        checkRep(s, t);
+        return previousWeight;
+    }
+
+    private int setEdge(int s, int t, int weight) {
+        addId(s);
+        addId(t);
+        long slot = slot(s, t);
+        boolean present = keys.getLong(slot * KEY) != 0;
+        int previousWeight = present ? values.getInt(slot * VALUE + WEIGHT) : 0;
+        if (weight > 0 && present) {
+            values.putInt(slot * VALUE + WEIGHT, weight);
+        } else if (weight > 0) {
+            int outPosition = append(s, OUT, t);
+            int inPosition = append(t, IN, s);
+            keys.putLong(slot * KEY, key(s, t));
+            values.putInt(slot * VALUE + WEIGHT, weight);
+            values.putInt(slot * VALUE + OUT_POSITION, outPosition);
+            values.putInt(slot * VALUE + IN_POSITION, inPosition);
+            if (++edges * 4 > slots * 3) growIndex();
+        } else if (present) {
+            unlink(slot, s, t);
+        }
+        return previousWeight;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        ensureOpen();
+        int v = symbols.find(vertex);
+        if (v < 0 || !alive(v)) return false;
+        removeId(v);
+        checkRep(v, v);
+        return true;
+    }
+
+    // Removes each vertex as remove() would, checking the rep once for the
+    // batch. Vertex IDs, and the labels of the symbol table, are kept.
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        ensureOpen();
+        boolean removed = false;
+        for (L vertex : vertices) {
+            int v = symbols.find(vertex);
+            if (v < 0 || !alive(v)) continue;
+            removeId(v);
+            removed = true;
+        }
+        checkRep();
+        return removed;
+    }
+
+    // Unlinks every edge of v and marks its record dead; unlinking takes each
+    // row's last entry, so nothing is moved in v's rows.
+    private void removeId(int v) {
+        for (int n = count(v, OUT); n > 0; n = count(v, OUT)) {
+            int t = neighborAt(v, OUT, n - 1);
+            unlink(slot(v, t), v, t);
+        }
+        for (int n = count(v, IN); n > 0; n = count(v, IN)) {
+            int s = neighborAt(v, IN, n - 1);
+            unlink(slot(s, v), s, v);
+        }
+        vertices.putInt((long) v * RECORD + ALIVE, 0);
+        live--;
+    }
+
+    // The edge index keeps its peak size after removals; this rebuilds it at
+    // half full or less, in new segments. Emptied row blocks are already on
+    // the free lists, and rows and records never move, so they are kept; so
+    // is the symbol table, whose IDs are the record numbers.
+    @Override
+    public void compact() {
+        ensureOpen();
+        long fit = 16;
+        while (fit < edges * 2) fit *= 2;
+        if (fit < slots) resizeIndex(fit);
+        checkRep();
+    }
+
+    @Override
+    public Set<L> vertices() {
+        ensureOpen();
+        return vertexView;
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        ensureOpen();
+        int t = symbols.find(target);
+        if (t < 0 || !alive(t)) return Collections.emptyMap();
+        int[] sources = neighbors(t, IN);
+        Map<L, Integer> weights = new HashMap<>(sources.length * 4 / 3 + 1);
+        for (int s : sources) {
+            weights.put(symbols.label(s), values.getInt(slot(s, t) * VALUE + WEIGHT));
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        ensureOpen();
+        int s = symbols.find(source);
+        if (s < 0 || !alive(s)) return Collections.emptyMap();
+        int[] targets = neighbors(s, OUT);
+        Map<L, Integer> weights = new HashMap<>(targets.length * 4 / 3 + 1);
+        for (int t : targets) {
+            weights.put(symbols.label(t), values.getInt(slot(s, t) * VALUE + WEIGHT));
+        }
+        return Collections.unmodifiableMap(weights);
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        ensureOpen();
+        int s = symbols.find(source);
+        if (s >= 0 && alive(s)) visit(s, OUT, visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        ensureOpen();
+        int t = symbols.find(target);
+        if (t >= 0 && alive(t)) visit(t, IN, visitor);
+    }
+
+    // Walks id's row block by block, newest block first, and looks up each
+    // edge's weight in the index.
+    private void visit(int id, int direction, ObjIntConsumer<? super L> visitor) {
+        int count = count(id, direction);
+        for (long block = count == 0 ? NULL : head(id, direction); block != NULL; block = blocks.getLong(block + NEXT)) {
+            int base = blocks.getInt(block + BASE);
+            for (int i = count - 1; i >= base; i--) {
+                int neighbor = blocks.getInt(block + HEADER + 4L * (i - base));
+                long slot = direction == OUT ? slot(id, neighbor) : slot(neighbor, id);
+                visitor.accept(symbols.label(neighbor), values.getInt(slot * VALUE + WEIGHT));
+            }
+            count = base;
+        }
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        ensureOpen();
+        int s = symbols.find(source);
+        int t = symbols.find(target);
+        if (s < 0 || t < 0) return 0;
+        long slot = slot(s, t);
+        return keys.getLong(slot * KEY) == 0 ? 0 : values.getInt(slot * VALUE + WEIGHT);
+    }
+
+    @Override
+    public int outDegree(L source) {
+        ensureOpen();
+        int s = symbols.find(source);
+        return s >= 0 && alive(s) ? count(s, OUT) : 0;
+    }
+
+    @Override
+    public int inDegree(L target) {
+        ensureOpen();
+        int t = symbols.find(target);
+        return t >= 0 && alive(t) ? count(t, IN) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return closed ? "OffHeapGraph (closed)" : "OffHeapGraph with " + live + " vertices and " + edges + " edges";
+    }
+
+    // Vertex records
+
+    private boolean alive(int id) {
+        return id < records && vertices.getInt((long) id * RECORD + ALIVE) != 0;
+    }
+
+    private long head(int id, int direction) {
+        return vertices.getLong((long) id * RECORD + HEAD + 8 * direction);
+    }
+
+    private int count(int id, int direction) {
+        return vertices.getInt((long) id * RECORD + COUNT + 4 * direction);
+    }
+
+    // Rows
+
+    private static int blockBytes(int sizeClass) {
+        return HEADER + 4 * (MIN_CAPACITY << sizeClass);
+    }
+
+    // Returns a block of the size class from its free list, or else from the
+    // end of the used memory; a block that would straddle two segments starts
+    // at the next one instead.
+    private long allocate(int sizeClass) {
+        long block = freeBlocks[sizeClass];
+        if (block != NULL) {
+            freeBlocks[sizeClass] = blocks.getLong(block + NEXT);
+            return block;
+        }
+        int bytes = blockBytes(sizeClass);
+        long segmentEnd = (top | (segmentBytes - 1)) + 1;
+        if (top + bytes > segmentEnd) top = segmentEnd;
+        block = top;
+        top += bytes;
+        blocks.ensure(top);
+        return block;
+    }
+
+    private void free(long block) {
+        int sizeClass = Integer.numberOfTrailingZeros(blocks.getInt(block + CAPACITY) / MIN_CAPACITY);
+        blocks.putLong(block + NEXT, freeBlocks[sizeClass]);
+        freeBlocks[sizeClass] = block;
+    }
+
+    // Adds neighbor to the end of id's row and returns its position.
+    private int append(int id, int direction, int neighbor) {
+        long record = (long) id * RECORD;
+        long head = head(id, direction);
+        int count = count(id, direction);
+        if (head == NULL || count == blocks.getInt(head + BASE) + blocks.getInt(head + CAPACITY)) {
+            int sizeClass = head == NULL ? 0
+                    : Math.min(Integer.numberOfTrailingZeros(blocks.getInt(head + CAPACITY) / MIN_CAPACITY) + 1, maxSizeClass);
+            long block = allocate(sizeClass);
+            blocks.putLong(block + NEXT, head);
+            blocks.putInt(block + CAPACITY, MIN_CAPACITY << sizeClass);
+            blocks.putInt(block + BASE, count);
+            head = block;
+            vertices.putLong(record + HEAD + 8 * direction, head);
+        }
+        blocks.putInt(head + HEADER + 4L * (count - blocks.getInt(head + BASE)), neighbor);
+        vertices.putInt(record + COUNT + 4 * direction, count + 1);
+        return count;
+    }
+
+    // Returns the address of position in the row starting at head.
+    private long entry(long head, int position) {
+        long block = head;
+        while (blocks.getInt(block + BASE) > position) block = blocks.getLong(block + NEXT);
+        return block + HEADER + 4L * (position - blocks.getInt(block + BASE));
+    }
+
+    private int neighborAt(int id, int direction, int position) {
+        return blocks.getInt(entry(head(id, direction), position));
+    }
+
+    private int[] neighbors(int id, int direction) {
+        int count = id < records ? count(id, direction) : 0;
+        int[] neighbors = new int[count];
+        for (long block = count == 0 ? NULL : head(id, direction); block != NULL; block = blocks.getLong(block + NEXT)) {
+            int base = blocks.getInt(block + BASE);
+            for (int i = base; i < count; i++) {
+                neighbors[i] = blocks.getInt(block + HEADER + 4L * (i - base));
+            }
+            count = base;
+        }
+        return neighbors;
+    }
+
+    // Removes the entry at position from id's row by moving the last entry
+    // into it; returns the neighbor that moved, or -1 if position was last.
+    private int removeAt(int id, int direction, int position) {
+        long record = (long) id * RECORD;
+        long head = head(id, direction);
+        int last = count(id, direction) - 1;
+        int moved = -1;
+        if (position != last) {
+            moved = blocks.getInt(entry(head, last));
+            blocks.putInt(entry(head, position), moved);
+        }
+        vertices.putInt(record + COUNT + 4 * direction, last);
+        if (last == blocks.getInt(head + BASE)) {
+            vertices.putLong(record + HEAD + 8 * direction, blocks.getLong(head + NEXT));
+            free(head);
+        }
+        return moved;
+    }
+
+    // Edge index
+
+    private static long key(int source, int target) {
+        return (((long) source << 32) | target) + 1;
+    }
+
+    private static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        return key ^ (key >>> 33);
+    }
+
+    // Returns the slot holding source -> target, or the empty slot where it would go.
+    private long slot(int source, int target) {
+        long key = key(source, target);
+        long mask = slots - 1;
+        for (long slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            long found = keys.getLong(slot * KEY);
+            if (found == key || found == 0) return slot;
+        }
+    }
+
+    // Deletes the edge in slot from the index and both rows, and repoints the
+    // index at the row entries that moved to fill the gaps.
+    private void unlink(long slot, int source, int target) {
+        int outPosition = values.getInt(slot * VALUE + OUT_POSITION);
+        int inPosition = values.getInt(slot * VALUE + IN_POSITION);
+        deleteSlot(slot);
+        edges--;
+        int moved = removeAt(source, OUT, outPosition);
+        if (moved >= 0) values.putInt(slot(source, moved) * VALUE + OUT_POSITION, outPosition);
+        moved = removeAt(target, IN, inPosition);
+        if (moved >= 0) values.putInt(slot(moved, target) * VALUE + IN_POSITION, inPosition);
+    }
+
+    // Empties slot, shifting back later entries of its probe run so that
+    // lookups need no tombstones.
+    private void deleteSlot(long slot) {
+        long mask = slots - 1;
+        long hole = slot;
+        for (long next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+            long key = keys.getLong(next * KEY);
+            if (key == 0) break;
+            long home = hash(key) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys.putLong(hole * KEY, key);
+                copyValue(values, next, values, hole);
+                hole = next;
+            }
+        }
+        keys.putLong(hole * KEY, 0);
+    }
+
+    private static void copyValue(Segments from, long fromSlot, Segments to, long toSlot) {
+        to.putInt(toSlot * VALUE + WEIGHT, from.getInt(fromSlot * VALUE + WEIGHT));
+        to.putInt(toSlot * VALUE + OUT_POSITION, from.getInt(fromSlot * VALUE + OUT_POSITION));
+        to.putInt(toSlot * VALUE + IN_POSITION, from.getInt(fromSlot * VALUE + IN_POSITION));
+    }
+
+    private void growIndex() {
+        resizeIndex(slots * 2);
+    }
+
+    private void resizeIndex(long newSlots) {
+        Segments oldKeys = keys;
+        Segments oldValues = values;
+        long oldSlots = slots;
+        slots = newSlots;
+        keys = new Segments(segmentBytes);
+        keys.ensure(slots * KEY);
+        values = new Segments(segmentBytes);
+        values.ensure(slots * VALUE);
+        long mask = slots - 1;
+        for (long old = 0; old < oldSlots; old++) {
+            long key = oldKeys.getLong(old * KEY);
+            if (key == 0) continue;
+            long slot = hash(key) & mask;
+            while (keys.getLong(slot * KEY) != 0) slot = (slot + 1) & mask;
+            keys.putLong(slot * KEY, key);
+            copyValue(oldValues, old, values, slot);
+        }
+        oldKeys.release();
+        oldValues.release();
+    }
+
+    // A live view of the alive vertices.
+    private final class VertexSet extends AbstractSet<L> {
+
+        @Override
+        public int size() {
+            ensureOpen();
+            return live;
+        }
+
+        @Override
+        public boolean contains(Object vertex) {
+            ensureOpen();
+            int id = symbols.find(vertex);
+            return id >= 0 && alive(id);
+        }
+
+        @Override
+        public Iterator<L> iterator() {
+            ensureOpen();
+            return new Iterator<L>() {
+                private int next = advance(0);
+
+                private int advance(int id) {
+                    while (id < records && !alive(id)) id++;
+                    return id;
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return next < records;
+                }
+
+                @Override
+                public L next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    L label = symbols.label(next);
+                    next = advance(next + 1);
+                    return label;
+                }
+            };
+        }
+    }
+}
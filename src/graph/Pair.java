@@ -0,0 +1,46 @@
+package graph;
+
+import java.util.Objects;
+
+/**
+ * An ordered (source, target) pair of vertices, used as the key of bulk edge
+ * updates such as Graph.setAll and Graph.mergeWeights. Immutable.
+ */
+public final class Pair<L> {
+    private final L source;
+    private final L target;
+
+    public Pair(L source, L target) {
+        if (source == null || target == null) {
+            throw new IllegalArgumentException("Pair endpoints cannot be null");
+        }
+        this.source = source;
+        this.target = target;
+    }
+
+    public L getSource() {
+        return source;
+    }
+
+    public L getTarget() {
+        return target;
+    }
+
+    @Override
+    public boolean equals(Object that) {
+        if (this == that) return true;
+        if (!(that instanceof Pair)) return false;
+        Pair<?> other = (Pair<?>) that;
+        return source.equals(other.source) && target.equals(other.target);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(source, target);
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + target;
+    }
+}
@@ -0,0 +1,297 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * Multi-hop queries over a frozen snapshot of a Graph: weighted shortest
+ * paths, bounded k-hop reachability, and bridges of several words.
+ *
+ * <p>Searches run over FrozenGraph's CSR arrays with a primitive indexed heap.
+ * Per-vertex state lives in arrays sized to the graph that are allocated once
+ * and reused by every query; a query invalidates the previous one's state by
+ * bumping an epoch stamp rather than clearing the arrays. So a PathFinder is
+ * cheap to query repeatedly, but is not thread-safe: use one per thread.
+ *
+ * <p>For shortest paths an edge weight is its length. For bridges a weight is
+ * a strength, as in GraphPoet, and heavier bridges are preferred.
+ */
+public final class PathFinder<L> {
+
+    private static final long UNREACHED = Long.MAX_VALUE;
+    private static final int FORWARD_SETTLED = 1;
+    private static final int BACKWARD_SETTLED = 2;
+
+    private final FrozenGraph<L> graph;
+
+    // Per-vertex state of the current query, valid for v only while
+    // stamp[v] == epoch; touch(v) resets it on first use.
+    private final int[] stamp;
+    private final long[] forward;
+    private final int[] forwardParent;
+    private final long[] backward;
+    private final int[] backwardParent;
+    private final int[] settled;
+    private int epoch = 0;
+
+    private final IndexedHeap forwardHeap;
+    private final IndexedHeap backwardHeap;
+    private final int[] queue;
+
+    /** Makes a path finder over a snapshot of graph's current vertices and edges. */
+    public PathFinder(Graph<L> graph) {
+        this.graph = FrozenGraph.of(graph);
+        int n = this.graph.vertexCount();
+        stamp = new int[n];
+        forward = new long[n];
+        forwardParent = new int[n];
+        backward = new long[n];
+        backwardParent = new int[n];
+        settled = new int[n];
+        forwardHeap = new IndexedHeap(n);
+        backwardHeap = new IndexedHeap(n);
+        queue = new int[n];
+    }
+
+    private void begin() {
+        if (++epoch == 0) {
+            Arrays.fill(stamp, 0);
+            epoch = 1;
+        }
+        forwardHeap.clear();
+        backwardHeap.clear();
+    }
+
+    private void touch(int v) {
+        if (stamp[v] == epoch) return;
+        stamp[v] = epoch;
+        forward[v] = UNREACHED;
+        backward[v] = UNREACHED;
+        forwardParent[v] = -1;
+        backwardParent[v] = -1;
+        settled[v] = 0;
+    }
+
+    /**
+     * Returns a lightest path from `from` to `to`, both ends included, found
+     * with Dijkstra's algorithm; or an empty list if there is none.
+     */
+    public List<L> shortestPath(L from, L to) {
+        int source = graph.idOf(from);
+        int target = graph.idOf(to);
+        if (source < 0 || target < 0) return Collections.emptyList();
+        begin();
+        touch(source);
+        forward[source] = 0;
+        forwardHeap.push(source, 0);
+        while (!forwardHeap.isEmpty()) {
+            int u = forwardHeap.pop();
+            if (u == target) return path(source, target, target);
+            settled[u] |= FORWARD_SETTLED;
+            for (int e = graph.outStart(u); e < graph.outStart(u + 1); e++) {
+                int v = graph.outTarget(e);
+                touch(v);
+                long distance = forward[u] + graph.outWeight(e);
+                if ((settled[v] & FORWARD_SETTLED) == 0 && distance < forward[v]) {
+                    forward[v] = distance;
+                    forwardParent[v] = u;
+                    forwardHeap.push(v, distance);
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * Returns a lightest path from `from` to `to` like shortestPath(), found by
+     * searching forward from `from` and backward from `to` at once, which
+     * usually settles far fewer vertices.
+     */
+    public List<L> bidirectionalShortestPath(L from, L to) {
+        int source = graph.idOf(from);
+        int target = graph.idOf(to);
+        if (source < 0 || target < 0) return Collections.emptyList();
+        int meeting = meet(source, target);
+        return meeting < 0 ? Collections.emptyList() : path(source, target, meeting);
+    }
+
+    /** Returns the total weight of a lightest path from `from` to `to`, or -1 if there is none. */
+    public long distance(L from, L to) {
+        int source = graph.idOf(from);
+        int target = graph.idOf(to);
+        if (source < 0 || target < 0) return -1;
+        int meeting = meet(source, target);
+        return meeting < 0 ? -1 : forward[meeting] + backward[meeting];
+    }
+
+    // Bidirectional Dijkstra; returns a vertex on a lightest path, or -1. Each
+    // step settles the side with the smaller key, and the search stops once the
+    // two smallest keys add up to no less than the best path seen.
+    private int meet(int source, int target) {
+        begin();
+        touch(source);
+        touch(target);
+        forward[source] = 0;
+        backward[target] = 0;
+        forwardHeap.push(source, 0);
+        backwardHeap.push(target, 0);
+        long best = source == target ? 0 : UNREACHED;
+        int meeting = source == target ? source : -1;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+                && forwardHeap.minKey() + backwardHeap.minKey() < best) {
+            if (forwardHeap.minKey() <= backwardHeap.minKey()) {
+                int u = forwardHeap.pop();
+                settled[u] |= FORWARD_SETTLED;
+                for (int e = graph.outStart(u); e < graph.outStart(u + 1); e++) {
+                    int v = graph.outTarget(e);
+                    touch(v);
+                    long distance = forward[u] + graph.outWeight(e);
+                    if ((settled[v] & FORWARD_SETTLED) != 0 || distance >= forward[v]) continue;
+                    forward[v] = distance;
+                    forwardParent[v] = u;
+                    forwardHeap.push(v, distance);
+                    if (backward[v] != UNREACHED && distance + backward[v] < best) {
+                        best = distance + backward[v];
+                        meeting = v;
+                    }
+                }
+            } else {
+                int u = backwardHeap.pop();
+                settled[u] |= BACKWARD_SETTLED;
+                for (int e = graph.inStart(u); e < graph.inStart(u + 1); e++) {
+                    int v = graph.inSource(e);
+                    touch(v);
+                    long distance = backward[u] + graph.inWeight(e);
+                    if ((settled[v] & BACKWARD_SETTLED) != 0 || distance >= backward[v]) continue;
+                    backward[v] = distance;
+                    backwardParent[v] = u;
+                    backwardHeap.push(v, distance);
+                    if (forward[v] != UNREACHED && distance + forward[v] < best) {
+                        best = distance + forward[v];
+                        meeting = v;
+                    }
+                }
+            }
+        }
+        return meeting;
+    }
+
+    // Follows forward parents from meeting back to source, then backward
+    // parents from meeting on to target.
+    private List<L> path(int source, int target, int meeting) {
+        List<L> path = new ArrayList<>();
+        for (int v = meeting; v != source; v = forwardParent[v]) {
+            path.add(graph.label(v));
+        }
+        path.add(graph.label(source));
+        Collections.reverse(path);
+        for (int v = meeting; v != target; ) {
+            v = backwardParent[v];
+            path.add(graph.label(v));
+        }
+        return path;
+    }
+
+    /**
+     * Returns every vertex that can be reached from `from` over at most hops
+     * edges, `from` included, in breadth-first order; or an empty set if from
+     * is not in the graph.
+     *
+     * @throws IllegalArgumentException if hops is negative
+     */
+    public Set<L> reachable(L from, int hops) {
+        if (hops < 0) throw new IllegalArgumentException("Hops cannot be negative");
+        int source = graph.idOf(from);
+        if (source < 0) return Collections.emptySet();
+        begin();
+        touch(source);
+        forward[source] = 0;
+        queue[0] = source;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int u = queue[head++];
+            if (forward[u] == hops) continue;
+            for (int e = graph.outStart(u); e < graph.outStart(u + 1); e++) {
+                int v = graph.outTarget(e);
+                touch(v);
+                if (forward[v] == UNREACHED) {
+                    forward[v] = forward[u] + 1;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        Set<L> reached = new LinkedHashSet<>(tail * 4 / 3 + 1);
+        for (int i = 0; i < tail; i++) {
+            reached.add(graph.label(queue[i]));
+        }
+        return Collections.unmodifiableSet(reached);
+    }
+
+    /**
+     * Returns the words of the best bridge from word1 to word2 of at most
+     * maxWords words, in order; or an empty list if there is none. The best
+     * bridge is a shortest one, and among those the one whose edges have the
+     * largest total weight; with maxWords 1 this is GraphPoet's bridge word.
+     * A bridge never passes through word1 or word2. Runs one breadth-first
+     * layer per bridge length, so it visits at most the vertices within
+     * maxWords hops of word1.
+     *
+     * @throws IllegalArgumentException if maxWords is negative
+     */
+    public List<L> bridge(L word1, L word2, int maxWords) {
+        if (maxWords < 0) throw new IllegalArgumentException("Bridge length cannot be negative");
+        int source = graph.idOf(word1);
+        int target = graph.idOf(word2);
+        if (source < 0 || target < 0 || source == target) return Collections.emptyList();
+        // forward[v] is the best score of a shortest path to v and backward[v] its length
+        begin();
+        touch(source);
+        forward[source] = 0;
+        backward[source] = 0;
+        queue[0] = source;
+        int start = 0;
+        int end = 1;
+        for (int length = 1; length <= maxWords; length++) {
+            int next = end;
+            for (int i = start; i < end; i++) {
+                int u = queue[i];
+                for (int e = graph.outStart(u); e < graph.outStart(u + 1); e++) {
+                    int v = graph.outTarget(e);
+                    if (v == target) continue;
+                    touch(v);
+                    long score = forward[u] + graph.outWeight(e);
+                    if (backward[v] == UNREACHED) {
+                        backward[v] = length;
+                        queue[next++] = v;
+                    } else if (backward[v] != length || score <= forward[v]) {
+                        continue;
+                    }
+                    forward[v] = score;
+                    forwardParent[v] = u;
+                }
+            }
+            if (next == end) break;
+            start = end;
+            end = next;
+
+            int best = -1;
+            long bestScore = 0;
+            for (int i = start; i < end; i++) {
+                int e = graph.findEdge(queue[i], target);
+                if (e >= 0 && forward[queue[i]] + graph.outWeight(e) > bestScore) {
+                    bestScore = forward[queue[i]] + graph.outWeight(e);
+                    best = queue[i];
+                }
+            }
+            if (best >= 0) {
+                List<L> bridge = new ArrayList<>(length);
+                for (int v = best; v != source; v = forwardParent[v]) {
+                    bridge.add(graph.label(v));
+                }
+                Collections.reverse(bridge);
+                return bridge;
+            }
+        }
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,67 @@
+package graph;
+
+import java.util.*;
+
+/**
+ * Picks the heaviest entries of an adjacency map, for the default
+ * Graph.topTargets() and topSources().
+ */
+final class Ranking {
+
+    private Ranking() {
+    }
+
+    /**
+     * Returns up to k entries of row with the highest weights, heaviest first,
+     * as a read-only map. Equal weights keep their order in row. Takes
+     * O(d log k) time for a row of d entries.
+     *
+     * @throws IllegalArgumentException if k is negative
+     */
+    static <L> Map<L, Integer> top(Map<L, Integer> row, int k) {
+        if (k < 0) throw new IllegalArgumentException("k cannot be negative");
+        int n = Math.min(k, row.size());
+        if (n == 0) return Collections.emptyMap();
+
+        // min-heap of the best n seen so far; on equal weights the later entry is worse
+        PriorityQueue<Ranked<L>> heap = new PriorityQueue<>(n, Ranking::compareWorstFirst);
+        int order = 0;
+        for (Map.Entry<L, Integer> entry : row.entrySet()) {
+            Ranked<L> ranked = new Ranked<>(entry.getKey(), entry.getValue(), order++);
+            if (heap.size() < n) {
+                heap.add(ranked);
+            } else if (compareWorstFirst(ranked, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+        Object[] best = new Object[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--) {
+            best[i] = heap.poll();
+        }
+        Map<L, Integer> top = new LinkedHashMap<>(best.length * 4 / 3 + 1);
+        for (Object entry : best) {
+            @SuppressWarnings("unchecked")
+            Ranked<L> ranked = (Ranked<L>) entry;
+            top.put(ranked.label, ranked.weight);
+        }
+        return Collections.unmodifiableMap(top);
+    }
+
+    private static int compareWorstFirst(Ranked<?> a, Ranked<?> b) {
+        if (a.weight != b.weight) return Integer.compare(a.weight, b.weight);
+        return Integer.compare(b.order, a.order);
+    }
+
+    private static final class Ranked<L> {
+        final L label;
+        final int weight;
+        final int order;
+
+        Ranked(L label, int weight, int order) {
+            this.label = label;
+            this.weight = weight;
+            this.order = order;
+        }
+    }
+}
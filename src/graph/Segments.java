@@ -0,0 +1,135 @@
+package graph;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Off-heap memory addressed by long offsets, made of equal-sized direct
+ * ByteBuffers. Growing adds segments and never copies the ones already there,
+ * so an offset stays valid for the life of the memory. Values at an offset
+ * must not straddle two segments; callers keep records aligned to their size.
+ *
+ * <p>New memory reads as zeros. release() frees every segment at once instead
+ * of waiting for the garbage collector to notice the buffers are unreachable.
+ * Not thread-safe.
+ */
+final class Segments {
+
+    private final int shift;
+    private final int mask;
+    private ByteBuffer[] segments = new ByteBuffer[8];
+    private int count = 0;
+
+    // Rep invariant:
+    //   segments[0, count) are direct buffers of 1 << shift bytes; mask == (1 << shift) - 1
+    private void checkRep() {
+        assert count <= segments.length : "Segment count should fit the table";
+        assert mask == (1 << shift) - 1 : "Mask should match the segment size";
+    }
+
+    /** Makes empty memory of segments of segmentBytes each, a power of two. */
+    Segments(int segmentBytes) {
+        assert Integer.bitCount(segmentBytes) == 1 : "Segment size should be a power of two";
+        shift = Integer.numberOfTrailingZeros(segmentBytes);
+        mask = segmentBytes - 1;
+    }
+
+    int segmentBytes() {
+        return mask + 1;
+    }
+
+    /** Returns the number of bytes allocated, a multiple of segmentBytes(). */
+    long capacity() {
+        return (long) count << shift;
+    }
+
+    /** Makes offsets [0, bytes) usable, adding segments as needed. */
+    void ensure(long bytes) {
+        while (capacity() < bytes) {
+            if (count == segments.length) segments = Arrays.copyOf(segments, count * 2);
+            segments[count++] = ByteBuffer.allocateDirect(mask + 1);
+        }
+        checkRep();
+    }
+
+    int getInt(long offset) {
+        return segments[(int) (offset >>> shift)].getInt((int) offset & mask);
+    }
+
+    void putInt(long offset, int value) {
+        segments[(int) (offset >>> shift)].putInt((int) offset & mask, value);
+    }
+
+    long getLong(long offset) {
+        return segments[(int) (offset >>> shift)].getLong((int) offset & mask);
+    }
+
+    void putLong(long offset, long value) {
+        segments[(int) (offset >>> shift)].putLong((int) offset & mask, value);
+    }
+
+    /** Frees every segment; the memory must not be used afterwards. */
+    void release() {
+        for (int i = 0; i < count; i++) {
+            free(segments[i]);
+            segments[i] = null;
+        }
+        count = 0;
+    }
+
+    // The JDK has no public way to free a direct buffer. Java 9 and later have
+    // sun.misc.Unsafe.invokeCleaner(); Java 8 buffers expose their Cleaner
+    // through sun.nio.ch.DirectBuffer. If neither can be reached, free() does
+    // nothing and the buffer is freed when it is garbage collected.
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+    private static final Method CLEANER;
+    private static final Method CLEAN;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method cleaner = null;
+        Method clean = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            invokeCleaner = null;
+            try {
+                cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+                clean = Class.forName("sun.misc.Cleaner").getMethod("clean");
+            } catch (ReflectiveOperationException | RuntimeException e8) {
+                cleaner = null;
+                clean = null;
+            }
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+        CLEANER = cleaner;
+        CLEAN = clean;
+    }
+
+    private static void free(ByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else if (CLEANER != null) {
+                Object cleaner = CLEANER.invoke(buffer);
+                if (cleaner != null) CLEAN.invoke(cleaner);
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // leave the buffer to the garbage collector
+        }
+    }
+
+    /** Returns true if release() frees memory at once rather than leaving it to the garbage collector. */
+    static boolean freesEagerly() {
+        return INVOKE_CLEANER != null || CLEANER != null;
+    }
+}
@@ -0,0 +1,129 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Maps each distinct label to one canonical instance and a dense int ID.
+ *
+ * <p>Graphs that share a table store the same instance for every copy of a
+ * label they are given, so duplicate labels (for example the new String that
+ * split() makes for every occurrence of a word) become garbage at once
+ * instead of being held by each edge. Lookups compare cached hashes before
+ * calling equals(), and equals() on the canonical instance itself
+ * short-circuits on identity.
+ *
+ * <p>A table only grows: removing a vertex from a graph does not remove its
+ * label. A graph that made its own table replaces it with of() its vertices
+ * when compacted. Not thread-safe for intern() and id(); any number of threads may call
+ * find() and label() while nobody adds labels.
+ */
+public final class SymbolTable<L> {
+
+    private Object[] labels = new Object[16];
+    private int[] hashes = new int[16];
+    private int[] slots = new int[32];
+    private int size = 0;
+
+    // Abstraction function:
+    //   label labels[id] has ID id, for id in [0, size)
+    // Rep invariant:
+    //   slots.length is a power of two, at least 2 * size; every slot is 0 or
+    //   one more than the ID of a label, found by linear probing from its hash;
+    //   hashes[id] is the spread hash of labels[id]; labels are distinct
+    private void checkRep() {
+        assert Integer.bitCount(slots.length) == 1 : "Slot count should be a power of two";
+        assert slots.length >= 2 * size : "Slots should be at most half full";
+    }
+
+    /**
+     * Returns a new table of exactly the given labels, each holding the
+     * instance given, for a graph that owns its table to drop the labels of
+     * vertices it no longer has. IDs are not kept.
+     *
+     * @throws IllegalArgumentException if a label is null
+     */
+    public static <L> SymbolTable<L> of(Collection<? extends L> labels) {
+        SymbolTable<L> table = new SymbolTable<>();
+        for (L label : labels) {
+            table.id(label);
+        }
+        return table;
+    }
+
+    /** Returns the canonical instance equal to label, adding label if it is new. */
+    @SuppressWarnings("unchecked")
+    public L intern(L label) {
+        int id = id(label); // id() may replace labels, so call it first
+        return (L) labels[id];
+    }
+
+    /**
+     * Returns the ID of label, adding it if it is new.
+     *
+     * @throws IllegalArgumentException if label is null
+     */
+    public int id(L label) {
+        if (label == null) throw new IllegalArgumentException("Label cannot be null");
+        int hash = spread(label.hashCode());
+        int slot = slot(label, hash);
+        if (slots[slot] != 0) return slots[slot] - 1;
+
+        if (size == labels.length) {
+            labels = Arrays.copyOf(labels, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+        labels[size] = label;
+        hashes[size] = hash;
+        slots[slot] = ++size;
+        if (2 * size > slots.length) rehash();
+        checkRep();
+        return size - 1;
+    }
+
+    /** Returns the ID of label, or -1 if it has not been added. */
+    public int find(Object label) {
+        if (label == null) return -1;
+        return slots[slot(label, spread(label.hashCode()))] - 1;
+    }
+
+    /**
+     * Returns the label with the given ID.
+     *
+     * @throws IndexOutOfBoundsException if no label has that ID
+     */
+    @SuppressWarnings("unchecked")
+    public L label(int id) {
+        if (id < 0 || id >= size) throw new IndexOutOfBoundsException("No label with ID " + id);
+        return (L) labels[id];
+    }
+
+    /** Returns the number of labels in the table. */
+    public int size() {
+        return size;
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    // Returns the slot holding label, or the empty slot where it would go.
+    private int slot(Object label, int hash) {
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot] - 1;
+            if (id < 0) return slot;
+            if (hashes[id] == hash && (labels[id] == label || labels[id].equals(label))) return slot;
+        }
+    }
+
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = id + 1;
+        }
+    }
+}
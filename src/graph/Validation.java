@@ -0,0 +1,143 @@
+package graph;
+
+import java.util.Locale;
+
+/**
+ * How much of its rep invariant a mutable structure checks after each
+ * mutation. Every check still runs inside an assert, so none of this costs
+ * anything without -ea; the mode only decides what -ea pays for.
+ *
+ * <ul>
+ * <li>off: no checks.
+ * <li>incremental: after each mutation, check only the vertices and edges it
+ *     touched, so a build costs O(degree) per mutation instead of O(E).
+ * <li>periodic:N: check the whole rep after every Nth mutation; "full" is
+ *     periodic:1, which checks after every mutation.
+ * </ul>
+ *
+ * <p>Structures read the mode from the system property graph.validation when
+ * they are made, e.g. -Dgraph.validation=incremental. Without the property
+ * they use full, the original behavior.
+ */
+public final class Validation {
+
+    /** The name of the system property that configured() reads. */
+    public static final String PROPERTY = "graph.validation";
+
+    public enum Mode { OFF, INCREMENTAL, PERIODIC }
+
+    private static final Validation OFF = new Validation(Mode.OFF, 0);
+    private static final Validation INCREMENTAL = new Validation(Mode.INCREMENTAL, 0);
+    private static final Validation FULL = new Validation(Mode.PERIODIC, 1);
+
+    private final Mode mode;
+    private final int period;
+
+    private Validation(Mode mode, int period) {
+        this.mode = mode;
+        this.period = period;
+    }
+
+    public static Validation off() {
+        return OFF;
+    }
+
+    public static Validation incremental() {
+        return INCREMENTAL;
+    }
+
+    /** Returns the mode that checks the whole rep after every mutation. */
+    public static Validation full() {
+        return FULL;
+    }
+
+    /**
+     * Returns the mode that checks the whole rep after every period-th mutation.
+     *
+     * @throws IllegalArgumentException if period is less than 1
+     */
+    public static Validation periodic(int period) {
+        if (period < 1) throw new IllegalArgumentException("Period must be at least 1");
+        return period == 1 ? FULL : new Validation(Mode.PERIODIC, period);
+    }
+
+    /**
+     * Parses "off", "incremental", "full" or "periodic:N", ignoring case.
+     *
+     * @throws IllegalArgumentException if spec is none of those
+     */
+    public static Validation parse(String spec) {
+        String mode = spec.trim().toLowerCase(Locale.ROOT);
+        switch (mode) {
+        case "off":
+            return OFF;
+        case "incremental":
+            return INCREMENTAL;
+        case "full":
+            return FULL;
+        default:
+            if (mode.startsWith("periodic:")) {
+                try {
+                    return periodic(Integer.parseInt(mode.substring("periodic:".length())));
+                } catch (NumberFormatException e) {
+                    // fall through to the error below
+                }
+            }
+            throw new IllegalArgumentException("Unknown " + PROPERTY + " mode: " + spec);
+        }
+    }
+
+    /**
+     * Returns the mode named by the system property graph.validation, or full
+     * if it is not set.
+     *
+     * @throws IllegalArgumentException if the property names no mode
+     */
+    public static Validation configured() {
+        String spec = System.getProperty(PROPERTY);
+        return spec == null ? FULL : parse(spec);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    /** Returns N for periodic:N, or 0 for the other modes. */
+    public int period() {
+        return period;
+    }
+
+    /** Returns true if each mutation should check the vertices and edges it touched. */
+    public boolean checksTouched() {
+        return mode == Mode.INCREMENTAL;
+    }
+
+    /** Returns true if mutation number `mutation`, counting from 1, calls for a full check. */
+    public boolean checksAll(long mutation) {
+        return mode == Mode.PERIODIC && mutation % period == 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof Validation)) return false;
+        Validation that = (Validation) other;
+        return mode == that.mode && period == that.period;
+    }
+
+    @Override
+    public int hashCode() {
+        return mode.hashCode() * 31 + period;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+        case OFF:
+            return "off";
+        case INCREMENTAL:
+            return "incremental";
+        default:
+            return period == 1 ? "full" : "periodic:" + period;
+        }
+    }
+}
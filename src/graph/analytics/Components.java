@@ -0,0 +1,105 @@
+package graph.analytics;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Weakly connected components of a Graph: two vertices are in the same
+ * component if they are joined by a path when edge directions are ignored.
+ * Computed with union-find, by path halving and union by size, over a frozen
+ * snapshot, so the whole graph takes one pass over its edges.
+ */
+public final class Components {
+
+    private Components() {
+    }
+
+    /**
+     * Returns the weakly connected components of graph, largest first; ties
+     * keep the order of graph's vertices. Each component is a read-only set.
+     */
+    public static <L> List<Set<L>> weaklyConnected(Graph<L> graph) {
+        FrozenGraph<L> frozen = FrozenGraph.of(graph);
+        int n = frozen.vertexCount();
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+        for (int u = 0; u < n; u++) {
+            for (int e = frozen.outStart(u); e < frozen.outStart(u + 1); e++) {
+                union(parent, size, u, frozen.outTarget(e));
+            }
+        }
+
+        // component[root] is the index in components of the root's set
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        List<Set<L>> components = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            int root = find(parent, v);
+            if (component[root] < 0) {
+                component[root] = components.size();
+                components.add(new LinkedHashSet<>(size[root] * 4 / 3 + 1));
+            }
+            components.get(component[root]).add(frozen.label(v));
+        }
+        // List.sort is stable, so equal sizes keep vertex order
+        components.sort(Comparator.comparingInt((Set<L> c) -> c.size()).reversed());
+        for (int i = 0; i < components.size(); i++) {
+            components.set(i, Collections.unmodifiableSet(components.get(i)));
+        }
+        return Collections.unmodifiableList(components);
+    }
+
+    /** Returns the number of weakly connected components of graph. */
+    public static <L> int count(Graph<L> graph) {
+        FrozenGraph<L> frozen = FrozenGraph.of(graph);
+        int n = frozen.vertexCount();
+        int[] parent = new int[n];
+        int[] size = new int[n];
+        for (int v = 0; v < n; v++) {
+            parent[v] = v;
+            size[v] = 1;
+        }
+        int count = n;
+        for (int u = 0; u < n; u++) {
+            for (int e = frozen.outStart(u); e < frozen.outStart(u + 1); e++) {
+                if (union(parent, size, u, frozen.outTarget(e))) count--;
+            }
+        }
+        return count;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // Joins the sets of a and b; returns false if they were already one set.
+    private static boolean union(int[] parent, int[] size, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        if (a == b) return false;
+        if (size[a] < size[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        return true;
+    }
+}
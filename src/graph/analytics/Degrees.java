@@ -0,0 +1,96 @@
+package graph.analytics;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Degree and strength distributions of a Graph. A vertex's degree counts its
+ * edges in one direction and its strength adds up their weights. Every method
+ * takes a frozen snapshot of the graph first and then walks its arrays once.
+ */
+public final class Degrees {
+
+    private Degrees() {
+    }
+
+    /** Returns, for each out-degree, the number of vertices that have it. */
+    public static <L> SortedMap<Integer, Integer> outDegreeDistribution(Graph<L> graph) {
+        return distribution(degrees(FrozenGraph.of(graph), true));
+    }
+
+    /** Returns, for each in-degree, the number of vertices that have it. */
+    public static <L> SortedMap<Integer, Integer> inDegreeDistribution(Graph<L> graph) {
+        return distribution(degrees(FrozenGraph.of(graph), false));
+    }
+
+    /** Returns, for each out-strength, the number of vertices that have it. */
+    public static <L> SortedMap<Long, Integer> outStrengthDistribution(Graph<L> graph) {
+        return distribution(strengths(FrozenGraph.of(graph), true));
+    }
+
+    /** Returns, for each in-strength, the number of vertices that have it. */
+    public static <L> SortedMap<Long, Integer> inStrengthDistribution(Graph<L> graph) {
+        return distribution(strengths(FrozenGraph.of(graph), false));
+    }
+
+    /** Returns the total weight of each vertex's outgoing edges. */
+    public static <L> Map<L, Long> outStrengths(Graph<L> graph) {
+        return byLabel(FrozenGraph.of(graph), true);
+    }
+
+    /** Returns the total weight of each vertex's incoming edges. */
+    public static <L> Map<L, Long> inStrengths(Graph<L> graph) {
+        return byLabel(FrozenGraph.of(graph), false);
+    }
+
+    private static <L> Map<L, Long> byLabel(FrozenGraph<L> graph, boolean out) {
+        long[] strengths = strengths(graph, out);
+        Map<L, Long> byLabel = new HashMap<>(strengths.length * 4 / 3 + 1);
+        for (int v = 0; v < strengths.length; v++) {
+            byLabel.put(graph.label(v), strengths[v]);
+        }
+        return Collections.unmodifiableMap(byLabel);
+    }
+
+    private static int[] degrees(FrozenGraph<?> graph, boolean out) {
+        int[] degrees = new int[graph.vertexCount()];
+        for (int v = 0; v < degrees.length; v++) {
+            degrees[v] = out ? graph.outStart(v + 1) - graph.outStart(v) : graph.inStart(v + 1) - graph.inStart(v);
+        }
+        return degrees;
+    }
+
+    private static long[] strengths(FrozenGraph<?> graph, boolean out) {
+        long[] strengths = new long[graph.vertexCount()];
+        for (int v = 0; v < strengths.length; v++) {
+            if (out) {
+                for (int e = graph.outStart(v); e < graph.outStart(v + 1); e++) strengths[v] += graph.outWeight(e);
+            } else {
+                for (int e = graph.inStart(v); e < graph.inStart(v + 1); e++) strengths[v] += graph.inWeight(e);
+            }
+        }
+        return strengths;
+    }
+
+    private static SortedMap<Integer, Integer> distribution(int[] values) {
+        SortedMap<Integer, Integer> counts = new TreeMap<>();
+        for (int value : values) {
+            counts.merge(value, 1, Integer::sum);
+        }
+        return Collections.unmodifiableSortedMap(counts);
+    }
+
+    private static SortedMap<Long, Integer> distribution(long[] values) {
+        SortedMap<Long, Integer> counts = new TreeMap<>();
+        for (long value : values) {
+            counts.merge(value, 1, Integer::sum);
+        }
+        return Collections.unmodifiableSortedMap(counts);
+    }
+}
@@ -0,0 +1,185 @@
+package graph.analytics;
+
+import graph.FrozenGraph;
+import graph.Graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Weighted PageRank over a Graph, computed in parallel on a frozen snapshot.
+ *
+ * <p>A vertex passes its rank to its targets in proportion to edge weight, so
+ * a bigram seen 10 times carries ten times the rank of one seen once. Rank of
+ * vertices with no outgoing edges is spread evenly over all vertices. Ranks
+ * sum to 1.
+ *
+ * <p>Each iteration pulls rank along incoming edges, with fork/join workers
+ * that each own a range of vertices balanced by edge count, so no two workers
+ * write the same slot and no locks are needed. Iteration stops when the L1
+ * distance between successive rank vectors drops below the tolerance, or
+ * after maxIterations.
+ */
+public final class PageRank {
+
+    private final double damping;
+    private final double tolerance;
+    private final int maxIterations;
+    private final int parallelism;
+
+    /** Makes a PageRank with damping 0.85, tolerance 1e-9, 100 iterations, on every core. */
+    public PageRank() {
+        this(0.85, 1e-9, 100, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @throws IllegalArgumentException if damping is outside [0, 1), tolerance is
+     *         negative, or maxIterations or parallelism is less than 1
+     */
+    public PageRank(double damping, double tolerance, int maxIterations, int parallelism) {
+        if (!(damping >= 0 && damping < 1)) throw new IllegalArgumentException("Damping must be in [0, 1)");
+        if (!(tolerance >= 0)) throw new IllegalArgumentException("Tolerance cannot be negative");
+        if (maxIterations < 1) throw new IllegalArgumentException("maxIterations must be at least 1");
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.damping = damping;
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.parallelism = parallelism;
+    }
+
+    /** Returns the rank of every vertex of graph. */
+    public <L> Map<L, Double> rank(Graph<L> graph) {
+        FrozenGraph<L> frozen = FrozenGraph.of(graph);
+        int n = frozen.vertexCount();
+        if (n == 0) return Collections.emptyMap();
+
+        double[] strength = new double[n];
+        for (int u = 0; u < n; u++) {
+            for (int e = frozen.outStart(u); e < frozen.outStart(u + 1); e++) {
+                strength[u] += frozen.outWeight(e);
+            }
+        }
+        // share[u] is the rank u passes per unit of edge weight
+        double[] rank = new double[n];
+        double[] share = new double[n];
+        double dangling = 0;
+        Arrays.fill(rank, 1.0 / n);
+        for (int u = 0; u < n; u++) {
+            if (strength[u] > 0) {
+                share[u] = rank[u] / strength[u];
+            } else {
+                dangling += rank[u];
+            }
+        }
+
+        double[] next = new double[n];
+        double[] nextShare = new double[n];
+        int leaf = Math.max(256, frozen.inStart(n) / (parallelism * 8) + 1);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            for (int iteration = 0; iteration < maxIterations; iteration++) {
+                double base = (1 - damping) / n + damping * dangling / n;
+                double[] sums = pool.invoke(new Step(frozen, strength, rank, share, next, nextShare, base, 0, n, leaf));
+                double[] swap = rank;
+                rank = next;
+                next = swap;
+                swap = share;
+                share = nextShare;
+                nextShare = swap;
+                dangling = sums[1];
+                if (sums[0] < tolerance) break;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<L, Double> ranks = new HashMap<>(n * 4 / 3 + 1);
+        for (int v = 0; v < n; v++) {
+            ranks.put(frozen.label(v), rank[v]);
+        }
+        return Collections.unmodifiableMap(ranks);
+    }
+
+    // Computes next[start, end) from rank; returns {L1 change, rank held by
+    // vertices without outgoing edges} over the range.
+    @SuppressWarnings("serial")
+    private final class Step extends RecursiveTask<double[]> {
+        private final FrozenGraph<?> graph;
+        private final double[] strength;
+        private final double[] rank;
+        private final double[] share;
+        private final double[] next;
+        private final double[] nextShare;
+        private final double base;
+        private final int start;
+        private final int end;
+        private final int leaf;
+
+        Step(FrozenGraph<?> graph, double[] strength, double[] rank, double[] share, double[] next,
+                double[] nextShare, double base, int start, int end, int leaf) {
+            this.graph = graph;
+            this.strength = strength;
+            this.rank = rank;
+            this.share = share;
+            this.next = next;
+            this.nextShare = nextShare;
+            this.base = base;
+            this.start = start;
+            this.end = end;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected double[] compute() {
+            int edges = graph.inStart(end) - graph.inStart(start);
+            if (end - start > 1 && edges + (end - start) > leaf) {
+                int middle = split();
+                Step right = new Step(graph, strength, rank, share, next, nextShare, base, middle, end, leaf);
+                right.fork();
+                double[] left = new Step(graph, strength, rank, share, next, nextShare, base, start, middle, leaf).compute();
+                double[] other = right.join();
+                left[0] += other[0];
+                left[1] += other[1];
+                return left;
+            }
+            double change = 0;
+            double dangling = 0;
+            for (int v = start; v < end; v++) {
+                double pulled = 0;
+                for (int e = graph.inStart(v); e < graph.inStart(v + 1); e++) {
+                    pulled += share[graph.inSource(e)] * graph.inWeight(e);
+                }
+                double value = base + damping * pulled;
+                next[v] = value;
+                change += Math.abs(value - rank[v]);
+                if (strength[v] > 0) {
+                    nextShare[v] = value / strength[v];
+                } else {
+                    dangling += value;
+                }
+            }
+            return new double[] { change, dangling };
+        }
+
+        // Returns a vertex strictly inside (start, end) that halves the work,
+        // counting one unit per vertex and per incoming edge.
+        private int split() {
+            long half = (graph.inStart(start) + start + (long) graph.inStart(end) + end) / 2;
+            int low = start + 1;
+            int high = end - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (graph.inStart(middle) + middle < half) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package graph.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe histogram of durations in nanoseconds with power-of-two
+ * buckets: bucket 0 counts zeros and bucket i counts values in
+ * [2^(i-1), 2^i). Recording costs a few atomic adds and no allocation, and
+ * percentiles are accurate to within a factor of two, which is enough to tell
+ * a 5 µs call from a 5 ms one.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** Records one duration; negative durations count as 0. */
+    public void record(long nanos) {
+        nanos = Math.max(0, nanos);
+        buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+        total.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /** Returns the number of durations recorded. */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /** Returns the sum of the durations recorded. */
+    public long totalNanos() {
+        return total.sum();
+    }
+
+    /** Returns the longest duration recorded, or 0 if none. */
+    public long maxNanos() {
+        return max.get();
+    }
+
+    /** Returns the mean duration, or 0 if none were recorded. */
+    public long meanNanos() {
+        long count = count();
+        return count == 0 ? 0 : total.sum() / count;
+    }
+
+    /**
+     * Returns an upper bound on the given percentile of the recorded
+     * durations: the top of the bucket it falls in, capped by maxNanos(); or 0
+     * if none were recorded.
+     *
+     * @throws IllegalArgumentException if percentile is not in [0, 100]
+     */
+    public long percentile(double percentile) {
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be in [0, 100]");
+        }
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        for (int i = 0; i < BUCKETS; i++) {
+            rank -= counts[i];
+            if (rank <= 0) return i == 0 ? 0 : Math.min(max.get(), (1L << i) - 1);
+        }
+        return max.get();
+    }
+
+    /** Forgets every duration recorded so far. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+}
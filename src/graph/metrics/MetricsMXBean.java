@@ -0,0 +1,19 @@
+package graph.metrics;
+
+import java.util.Map;
+
+/**
+ * The JMX view of a Metrics registry; see Metrics.register().
+ */
+public interface MetricsMXBean {
+
+    // Returns every value that report() would send, by name.
+    Map<String, Long> getValues();
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    // Sets every counter and histogram back to zero.
+    void reset();
+}
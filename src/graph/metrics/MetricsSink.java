@@ -0,0 +1,15 @@
+package graph.metrics;
+
+/**
+ * Receives the values of a Metrics registry, one named value at a time; see
+ * Metrics.report(). A sink can forward them to a log, a time-series database,
+ * or any other monitoring system.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    // Receives one value. Counters arrive under their own name; a histogram
+    // named h arrives as h.count, h.meanNanos, h.p50Nanos, h.p99Nanos and
+    // h.maxNanos.
+    void record(String name, long value);
+}
@@ -0,0 +1,123 @@
+package poet;
+
+import graph.Graph;
+
+/**
+ * Bigram counting for GraphPoet's approximate mode, which fits corpora too
+ * big to count every bigram exactly. Every bigram is counted in a
+ * Count-Min sketch. Once a bigram's estimate reaches the threshold it is a
+ * heavy hitter: it becomes an edge of the graph, weighted with the estimate,
+ * and from then on is also counted exactly there. At most maxEdges bigrams
+ * are promoted; later heavy hitters stay in the sketch. GraphPoet keeps only
+ * the words of promoted bigrams in its vocabulary. So memory is the sketch,
+ * fixed by epsilon and delta, plus at most maxEdges edges and the words they
+ * join, however big the corpus. The long tail of rare bigrams, and of rare
+ * words, never reaches the graph.
+ *
+ * <p>An edge's weight overstates its bigram's count by at most what the
+ * estimate overstated when it was promoted, that is at most errorBound() with
+ * probability at least 1 - delta. An estimate no greater than errorBound()
+ * may come from collisions alone, even for a bigram never seen, so only
+ * trustedEstimate() should weigh a bigram that is not an edge. Bigrams are
+ * keyed by a 64-bit hash of both words, so unlike with String.hashCode()
+ * two distinct bigrams practically never share a key. Not thread-safe.
+ */
+public final class BigramSketch {
+
+    private final CountMinSketch sketch;
+    private final int threshold;
+    private final long maxEdges;
+    private long promoted = 0;
+
+    // Rep invariant:
+    //   threshold >= 1 and 0 <= promoted <= maxEdges
+    private void checkRep() {
+        assert threshold >= 1 : "Threshold should be positive";
+        assert promoted >= 0 && promoted <= maxEdges : "Promotions should stay within the edge budget";
+    }
+
+    /**
+     * Makes an empty sketch with the error bounds of a CountMinSketch of
+     * epsilon and delta, which promotes up to maxEdges bigrams once their
+     * estimates reach threshold.
+     *
+     * @throws IllegalArgumentException if epsilon or delta is not in (0, 1),
+     *         threshold is less than 1 or maxEdges is negative
+     */
+    public BigramSketch(double epsilon, double delta, int threshold, long maxEdges) {
+        if (threshold < 1) throw new IllegalArgumentException("Threshold must be at least 1");
+        if (maxEdges < 0) throw new IllegalArgumentException("Edge budget cannot be negative");
+        this.sketch = new CountMinSketch(epsilon, delta);
+        this.threshold = threshold;
+        this.maxEdges = maxEdges;
+        checkRep();
+    }
+
+    // Counts one occurrence of word1 word2, promoting it to an edge of graph
+    // if it has just become a heavy hitter. Returns true if it was promoted.
+    boolean add(Graph<String> graph, String word1, String word2) {
+        long key = key(word1, word2);
+        sketch.add(key, 1);
+        if (graph.weight(word1, word2) > 0) {
+            graph.increment(word1, word2, 1);
+            return false;
+        }
+        int estimate = sketch.estimate(key);
+        boolean promote = estimate >= threshold && promoted < maxEdges;
+        if (promote) {
+            graph.set(word1, word2, estimate);
+            promoted++;
+        }
+        checkRep();
+        return promote;
+    }
+
+    /** Returns the estimated count of the bigram word1 word2, never less than its true count. */
+    public int estimate(String word1, String word2) {
+        return sketch.estimate(key(word1, word2));
+    }
+
+    /**
+     * Returns the estimated count of the bigram word1 word2 if it is more than
+     * errorBound(), so that with probability at least 1 - delta the bigram
+     * has been seen; otherwise 0.
+     */
+    public int trustedEstimate(String word1, String word2) {
+        int estimate = sketch.estimate(key(word1, word2));
+        return estimate > sketch.errorBound() ? estimate : 0;
+    }
+
+    /** Returns the number of bigrams counted. */
+    public long bigrams() {
+        return sketch.total();
+    }
+
+    /** Returns the number of bigrams promoted to edges. */
+    public long promoted() {
+        return promoted;
+    }
+
+    /** Returns how far above a true count an estimate may be, with probability at least 1 - delta. */
+    public long errorBound() {
+        return sketch.errorBound();
+    }
+
+    /** Returns the bytes taken by the sketch itself, which is fixed at construction. */
+    public long sketchBytes() {
+        return sketch.bytes();
+    }
+
+    // 64-bit FNV-1a of word1, a space and word2. No word contains whitespace,
+    // so the space keeps ("ab", "c") and ("a", "bc") apart.
+    private static long key(String word1, String word2) {
+        return hash(hash(hash(0xcbf29ce484222325L, word1), " "), word2);
+    }
+
+    private static long hash(long h, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            h ^= word.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,227 @@
+package poet;
+
+import graph.Graph;
+import graph.Pair;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * A Graph wrapper that caches, for every word1, the best bridge word to each
+ * word2 reachable in two hops: the b maximizing weight(word1, b) + weight(b, word2).
+ *
+ * <p>Rows are computed the first time bridge() asks for word1, or all at once
+ * by buildAll(). Mutations made through this wrapper drop exactly the rows they
+ * can change, so the index stays correct as the graph is edited; mutations
+ * made directly on the wrapped graph are not seen.
+ *
+ * <p>Ties go to the candidate with the heavier first hop, and then to the one
+ * forEachTarget(word1) visits first, as in GraphPoet's own bridge search, so
+ * both always pick the same word.
+ */
+public class BridgeIndex<L> implements Graph<L> {
+
+    private final Graph<L> graph;
+    private final Map<L, Map<L, L>> rows = new ConcurrentHashMap<>();
+
+    public BridgeIndex(Graph<L> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Returns the best bridge from word1 to word2, or null if no word lies on
+     * a two-edge path between them.
+     */
+    public L bridge(L word1, L word2) {
+        // A word with no edges out, or no vertex at all, has an empty row;
+        // caching it would let lookups of arbitrary words grow the index.
+        if (graph.outDegree(word1) == 0) return null;
+        return rows.computeIfAbsent(word1, this::computeRow).get(word2);
+    }
+
+    /** Computes every row now, instead of on first use. */
+    public void buildAll() {
+        for (L word1 : graph.vertices()) {
+            if (graph.outDegree(word1) > 0) rows.computeIfAbsent(word1, this::computeRow);
+        }
+    }
+
+    // Returns the number of rows cached.
+    int cachedRows() {
+        return rows.size();
+    }
+
+    // A score packs the total weight above the first hop's weight, so one
+    // comparison orders by total and then by first hop.
+    private Map<L, L> computeRow(L word1) {
+        Map<L, L> bridges = new HashMap<>();
+        Map<L, Long> scores = new HashMap<>();
+        graph.forEachTarget(word1, (candidate, first) -> graph.forEachTarget(candidate, (word2, second) -> {
+            long score = ((long) first + second) << 31 | first;
+            Long best = scores.get(word2);
+            if (best == null || score > best) {
+                scores.put(word2, score);
+                bridges.put(word2, candidate);
+            }
+        }));
+        return bridges.isEmpty() ? Collections.emptyMap() : bridges;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        return graph.add(vertex);
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        int previous = graph.set(source, target, weight);
+        if (previous != weight) invalidate(source);
+        return previous;
+    }
+
+    @Override
+    public int increment(L source, L target, int delta) {
+        int previous = graph.increment(source, target, delta);
+        if (delta != 0) invalidate(source);
+        return previous;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends L> vertices) {
+        return graph.addAll(vertices);
+    }
+
+    @Override
+    public void setAll(Map<Pair<L>, Integer> weights) {
+        // Rows are dropped even if the batch fails partway, since some of its
+        // edges may already have changed.
+        try {
+            graph.setAll(weights);
+        } finally {
+            invalidateSources(weights.keySet());
+        }
+    }
+
+    @Override
+    public void mergeWeights(Map<Pair<L>, Integer> deltas) {
+        try {
+            graph.mergeWeights(deltas);
+        } finally {
+            invalidateSources(deltas.keySet());
+        }
+    }
+
+    private void invalidateSources(Collection<Pair<L>> edges) {
+        Set<L> sources = new HashSet<>();
+        for (Pair<L> edge : edges) {
+            if (sources.add(edge.getSource())) invalidate(edge.getSource());
+        }
+    }
+
+    // An edge out of source is a first hop in source's row and a second hop
+    // in the row of every word with an edge into source.
+    private void invalidate(L source) {
+        rows.remove(source);
+        graph.forEachSource(source, (word1, weight) -> rows.remove(word1));
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        if (!graph.vertices().contains(vertex)) return false;
+        Set<L> stale = new HashSet<>();
+        addStaleRows(vertex, stale);
+        boolean removed = graph.remove(vertex);
+        rows.keySet().removeAll(stale);
+        return removed;
+    }
+
+    // Collects the rows every removed vertex can appear in, then removes them
+    // all in one batch and drops those rows once.
+    @Override
+    public boolean removeAll(Collection<? extends L> vertices) {
+        Set<L> stale = new HashSet<>();
+        for (L vertex : vertices) {
+            if (graph.vertices().contains(vertex)) addStaleRows(vertex, stale);
+        }
+        if (stale.isEmpty()) return false;
+        boolean removed = graph.removeAll(vertices);
+        rows.keySet().removeAll(stale);
+        return removed;
+    }
+
+    // vertex can be word1, the bridge, or word2 of a cached entry. Visits the
+    // sources in place, so no maps are built.
+    private void addStaleRows(L vertex, Set<L> stale) {
+        stale.add(vertex);
+        graph.forEachSource(vertex, (bridge, first) -> {
+            stale.add(bridge);
+            graph.forEachSource(bridge, (word1, second) -> stale.add(word1));
+        });
+    }
+
+    @Override
+    public void compact() {
+        graph.compact();
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return graph.vertices();
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return graph.sources(target);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return graph.targets(source);
+    }
+
+    @Override
+    public void forEachTarget(L source, ObjIntConsumer<? super L> visitor) {
+        graph.forEachTarget(source, visitor);
+    }
+
+    @Override
+    public void forEachSource(L target, ObjIntConsumer<? super L> visitor) {
+        graph.forEachSource(target, visitor);
+    }
+
+    @Override
+    public int weight(L source, L target) {
+        return graph.weight(source, target);
+    }
+
+    @Override
+    public int outDegree(L source) {
+        return graph.outDegree(source);
+    }
+
+    @Override
+    public int inDegree(L target) {
+        return graph.inDegree(target);
+    }
+
+    @Override
+    public Map<L, Integer> topTargets(L source, int k) {
+        return graph.topTargets(source, k);
+    }
+
+    @Override
+    public Map<L, Integer> topSources(L target, int k) {
+        return graph.topSources(target, k);
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+}
@@ -0,0 +1,245 @@
+package poet;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Streams the words of a UTF-8 corpus out of a FileChannel one fixed-size
+ * chunk at a time, so memory use does not grow with the size of the corpus.
+ *
+ * <p>Words are maximal runs of non-whitespace, where whitespace is the ASCII
+ * set matched by the regex \s. Those bytes never occur inside a multi-byte
+ * UTF-8 sequence, so the corpus can be split on raw bytes before decoding.
+ * Each word is decoded into a reused char buffer and replaced by its key in a
+ * WordTable, so punctuation at either end is dropped, case is folded, and a
+ * word seen before costs no allocation. A tokenizer that does not intern new
+ * words only looks them up, so the table does not grow with the corpus; a
+ * word the table lacks then costs one String. A run of only punctuation is
+ * not a word. Text that is already decoded can be read from a Reader instead, with
+ * the same word rules.
+ */
+final class CorpusTokenizer {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+
+    /** Receives each pair of adjacent words in corpus order. */
+    interface BigramSink {
+        void accept(String previous, String word);
+    }
+
+    private final ByteBuffer chunk;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPORT)
+            .onUnmappableCharacter(CodingErrorAction.REPORT);
+    private final WordTable words;
+    private final boolean internNew;
+    private byte[] word = new byte[64];
+    private ByteBuffer wordView = ByteBuffer.wrap(word);
+    private int wordLength = 0;
+    private CharBuffer decoded = CharBuffer.allocate(64);
+    private char[] text = null;
+    private final StringBuilder textWord = new StringBuilder();
+    private String first = null;
+    private String previous = null;
+
+    CorpusTokenizer() {
+        this(new WordTable());
+    }
+
+    // Interns words into the given table, which lets a caller share one table
+    // between the corpus and later lookups.
+    CorpusTokenizer(WordTable words) {
+        this(CHUNK_SIZE, words);
+    }
+
+    CorpusTokenizer(int chunkSize) {
+        this(chunkSize, new WordTable());
+    }
+
+    CorpusTokenizer(int chunkSize, WordTable words) {
+        this(chunkSize, words, true);
+    }
+
+    // With internNew false, words are looked up in the table but never added.
+    CorpusTokenizer(WordTable words, boolean internNew) {
+        this(CHUNK_SIZE, words, internNew);
+    }
+
+    CorpusTokenizer(int chunkSize, WordTable words, boolean internNew) {
+        this.chunk = ByteBuffer.allocateDirect(chunkSize);
+        this.words = words;
+        this.internNew = internNew;
+    }
+
+    /**
+     * Reads the whole channel, passing every bigram to sink. A word cut by a
+     * chunk boundary is carried into the next chunk.
+     *
+     * @throws IOException if the channel cannot be read or is not valid UTF-8
+     */
+    void bigrams(FileChannel channel, BigramSink sink) throws IOException {
+        bigrams(channel, 0, Long.MAX_VALUE, sink);
+    }
+
+    /**
+     * Reads the words that start in the byte range [start, end) of the channel,
+     * passing every bigram between them to sink. A word that starts before
+     * start belongs to the previous range and is skipped; the last word may run
+     * past end. Splitting a file into adjacent ranges therefore yields every
+     * word exactly once, and only the bigrams joining two ranges are missed;
+     * those are first() of one range and previous() of the range before it.
+     * Uses positional reads, so tokenizers on different threads can share the
+     * channel.
+     *
+     * @throws IOException if the channel cannot be read or is not valid UTF-8
+     */
+    void bigrams(FileChannel channel, long start, long end, BigramSink sink) throws IOException {
+        long position = start;
+        boolean skipping = start > 0 && !startsWord(channel, start);
+        chunk.clear();
+        int read;
+        while ((read = channel.read(chunk, position)) != -1) {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                if (wordLength == 0 && position + chunk.position() >= end) return;
+                byte b = chunk.get();
+                if (isWhitespace(b)) {
+                    skipping = false;
+                    endWord(sink);
+                } else if (!skipping) {
+                    if (wordLength == word.length) {
+                        word = Arrays.copyOf(word, wordLength * 2);
+                        wordView = ByteBuffer.wrap(word);
+                    }
+                    word[wordLength++] = b;
+                }
+            }
+            position += read;
+            chunk.clear();
+        }
+        endWord(sink);
+    }
+
+    /**
+     * Reads reader to the end, passing every bigram to sink. Does not close
+     * the reader.
+     *
+     * @throws IOException if the reader fails
+     */
+    void bigrams(Reader reader, BigramSink sink) throws IOException {
+        if (text == null) text = new char[chunk.capacity()];
+        int read;
+        while ((read = reader.read(text, 0, text.length)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = text[i];
+                if (isWhitespace(c)) {
+                    endTextWord(sink);
+                } else {
+                    textWord.append(c);
+                }
+            }
+        }
+        endTextWord(sink);
+    }
+
+    private void endTextWord(BigramSink sink) {
+        if (textWord.length() == 0) return;
+        String current = key(textWord, 0, textWord.length());
+        textWord.setLength(0);
+        if (current != null) accept(current, sink);
+    }
+
+    // True if a word starting at position would not be the tail of an earlier word.
+    private static boolean startsWord(FileChannel channel, long position) throws IOException {
+        ByteBuffer before = ByteBuffer.allocate(1);
+        return channel.read(before, position - 1) != 1 || isWhitespace(before.get(0));
+    }
+
+    /**
+     * Forgets the words read so far, so that the next range starts with no
+     * first() or previous(). The chunk buffer and word table are kept, which
+     * lets one tokenizer read many ranges.
+     */
+    void reset() {
+        wordLength = 0;
+        textWord.setLength(0);
+        first = null;
+        previous = null;
+    }
+
+    /** Returns the first word read so far, or null if there was none. */
+    String first() {
+        return first;
+    }
+
+    /** Returns the last word read so far, or null if there was none. */
+    String previous() {
+        return previous;
+    }
+
+    private void endWord(BigramSink sink) throws IOException {
+        if (wordLength == 0) return;
+        int length = decode(wordLength);
+        wordLength = 0;
+        String current = key(decoded, 0, length);
+        if (current != null) accept(current, sink);
+    }
+
+    // Returns the key of text[start, end), or null if it has none: interned,
+    // or when not interning the table's instance if it has one.
+    private String key(CharSequence text, int start, int end) {
+        if (internNew) return words.intern(text, start, end);
+        String key = words.lookup(text, start, end);
+        return key != null ? key : WordTable.key(text, start, end);
+    }
+
+    private void accept(String current, BigramSink sink) {
+        if (previous != null) {
+            sink.accept(previous, current);
+        } else {
+            first = current;
+        }
+        previous = current;
+    }
+
+    // Decodes word[0, length) into decoded, leaving decoded's position at 0,
+    // and returns the number of chars.
+    private int decode(int length) throws IOException {
+        if (decoded.capacity() < length) decoded = CharBuffer.allocate(Math.max(length, decoded.capacity() * 2));
+        decoded.clear();
+        boolean ascii = true;
+        for (int i = 0; i < length && ascii; i++) {
+            ascii = word[i] >= 0;
+        }
+        if (ascii) {
+            for (int i = 0; i < length; i++) {
+                decoded.put(i, (char) word[i]);
+            }
+            return length;
+        }
+        wordView.limit(length).position(0);
+        decoder.reset();
+        CoderResult result = decoder.decode(wordView, decoded, true);
+        if (!result.isError()) result = decoder.flush(decoded);
+        if (result.isError()) result.throwException();
+        int chars = decoded.position();
+        decoded.clear();
+        return chars;
+    }
+
+    static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    static boolean isWhitespace(char c) {
+        return c < 0x80 && isWhitespace((byte) c);
+    }
+}
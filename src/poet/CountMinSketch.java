@@ -0,0 +1,120 @@
+package poet;
+
+/**
+ * Approximate counts of long keys in fixed memory. A Count-Min sketch keeps
+ * depth rows of width counters; a key adds to one counter per row, and its
+ * estimate is the smallest of them. Collisions can only add to a counter,
+ * so an estimate is never below the key's true count, and with probability
+ * at least 1 - delta it is at most epsilon * total() above it.
+ *
+ * <p>Updates are conservative: a key raises only the counters that would
+ * otherwise fall below its new estimate, which keeps the same guarantee
+ * with much less overcounting in practice. Counters saturate at
+ * Integer.MAX_VALUE. Not thread-safe.
+ */
+public final class CountMinSketch {
+
+    private final double epsilon;
+    private final int depth;
+    private final int mask;
+    private final int[] counters;
+    private long total = 0;
+
+    // Rep invariant:
+    //   counters.length == depth * (mask + 1), mask + 1 is a power of two,
+    //   and no counter is negative
+    private void checkRep() {
+        assert counters.length == depth * (mask + 1) : "Counters should fill every row";
+        assert Integer.bitCount(mask + 1) == 1 : "Width should be a power of two";
+        assert total >= 0 : "Total should be non-negative";
+    }
+
+    /**
+     * Makes an empty sketch whose estimates exceed true counts by at most
+     * epsilon * total() with probability at least 1 - delta. Its width is
+     * e / epsilon rounded up to a power of two and its depth ln(1 / delta)
+     * rounded up.
+     *
+     * @throws IllegalArgumentException unless both are in (0, 1)
+     */
+    public CountMinSketch(double epsilon, double delta) {
+        if (!(epsilon > 0 && epsilon < 1)) throw new IllegalArgumentException("Epsilon must be in (0, 1)");
+        if (!(delta > 0 && delta < 1)) throw new IllegalArgumentException("Delta must be in (0, 1)");
+        long width = Long.highestOneBit((long) Math.ceil(Math.E / epsilon) - 1) << 1;
+        if (width > 1 << 26) throw new IllegalArgumentException("Epsilon is too small");
+        this.epsilon = epsilon;
+        this.depth = (int) Math.ceil(Math.log(1 / delta));
+        this.mask = (int) width - 1;
+        this.counters = new int[depth * (int) width];
+        checkRep();
+    }
+
+    /**
+     * Adds count occurrences of key.
+     *
+     * @throws IllegalArgumentException if count is negative
+     */
+    public void add(long key, int count) {
+        if (count < 0) throw new IllegalArgumentException("Count cannot be negative");
+        long h = mix(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(h, row)]);
+        }
+        int raised = (int) Math.min(Integer.MAX_VALUE, (long) estimate + count);
+        for (int row = 0; row < depth; row++) {
+            int i = index(h, row);
+            if (counters[i] < raised) counters[i] = raised;
+        }
+        total += count;
+    }
+
+    /** Returns the estimated count of key, never less than its true count. */
+    public int estimate(long key) {
+        long h = mix(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[index(h, row)]);
+        }
+        return estimate;
+    }
+
+    /** Returns the sum of every count added. */
+    public long total() {
+        return total;
+    }
+
+    /** Returns how far above a true count an estimate may be, with probability at least 1 - delta. */
+    public long errorBound() {
+        return (long) Math.ceil(epsilon * total);
+    }
+
+    public int width() {
+        return mask + 1;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    /** Returns the bytes taken by the counters, which is fixed at construction. */
+    public long bytes() {
+        return 4L * counters.length;
+    }
+
+    // Row r uses h1 + r * h2 from the two halves of one 64-bit hash, which is
+    // as good as independent hash functions for Count-Min's bounds.
+    private int index(long h, int row) {
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
@@ -1,72 +1,477 @@
 package poet;
 
+import graph.ConcreteEdgesGraph;
 import graph.Graph;
+import graph.MappedGraph;
+import graph.Pair;
+import graph.SymbolTable;
+import graph.Validation;
+import graph.metrics.LatencyHistogram;
+import graph.metrics.Metrics;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjIntConsumer;
 
 public class GraphPoet {
 
-    private final Graph<String> graph = Graph.empty();
+    private Graph<String> graph;
+    private BridgeIndex<String> bridges = null;
+    // Both are off until enabled, and are cleared whenever append() changes
+    // the graph; direct changes to a caller's graph are not seen.
+    private LruCache<Pair<String>, String> bridgeCache = null;
+    private LruCache<String, String> poemCache = null;
+    private final WordTable words;
+    // Counts bigrams in approximate mode, or null when they are counted exactly.
+    private final BigramSketch sketch;
+    private String lastWord = null;
+    private boolean readOnly = false;
+    // Which appends -ea checks the whole graph after; see checkRep().
+    private final Validation validation = Validation.configured();
+    private long appends = 0;
+
+    // Recording is off until metrics().setEnabled(true); until then each
+    // instrumented point costs one volatile read.
+    private final Metrics metrics = new Metrics(false);
+    private final LatencyHistogram poemLatency = metrics.histogram("poet.poem");
+    private final LongAdder poemAllocation = metrics.counter("poet.poem.allocatedBytes");
+    private final LatencyHistogram appendLatency = metrics.histogram("poet.append");
+    private final LongAdder bigrams = metrics.counter("poet.bigrams");
+    private final LongAdder bridgeLookups = metrics.counter("poet.bridge.lookups");
+    private final LongAdder bridgeHits = metrics.counter("poet.bridge.hits");
+    private final LongAdder candidatesScanned = metrics.counter("poet.findBridge.scanned");
 
     public GraphPoet(File corpus) throws IOException {
-        List<String> lines = Files.readAllLines(corpus.toPath());
-        String text = String.join(" ", lines);
-        String[] words = text.toLowerCase().split("\\s+");
+        this(corpus, new SymbolTable<>(), null);
+    }
+
+    // Builds the poet in approximate mode: bigrams are counted in sketch, and
+    // only the heavy hitters it promotes become edges, so the graph stays
+    // within the sketch's edge budget however big the corpus is. Only the
+    // words of those edges are interned, so the vocabulary stays within it
+    // too. Bridges whose other hop was never promoted are weighed from the
+    // sketch, when its estimate is above the error bound. A bridge index, and
+    // save(), see only the promoted edges.
+    public GraphPoet(File corpus, BigramSketch sketch) throws IOException {
+        this(corpus, new SymbolTable<>(), sketch);
+    }
+
+    // The word table and the default graph share one symbol table, so each
+    // word is held once by both.
+    private GraphPoet(File corpus, SymbolTable<String> symbols, BigramSketch sketch) throws IOException {
+        this.graph = new ConcreteEdgesGraph<>(symbols);
+        this.words = new WordTable(symbols);
+        this.sketch = sketch;
+        append(corpus.toPath(), false);
+    }
 
-        for (int i = 0; i < words.length - 1; i++) {
-            String word1 = words[i];
-            String word2 = words[i + 1];
-            int weight = graph.targets(word1).getOrDefault(word2, 0);
-            graph.set(word1, word2, weight + 1);
+    // Builds the poet into the given empty graph, which lets callers pick the
+    // Graph implementation; the poet owns the graph from then on. Changes made
+    // to the graph other than through append() are not seen by the bridge and
+    // poem caches, which may then return stale results.
+    public GraphPoet(File corpus, Graph<String> graph) throws IOException {
+        this.graph = graph;
+        this.words = new WordTable();
+        this.sketch = null;
+        append(corpus.toPath(), false);
+    }
+
+    // Builds the poet by counting bigrams on `parallelism` fork/join workers;
+    // the resulting graph is identical to the one the sequential build makes.
+    // As with GraphPoet(File, Graph), the poet owns the graph from then on.
+    public GraphPoet(File corpus, Graph<String> graph, int parallelism) throws IOException {
+        this.graph = graph;
+        this.words = new WordTable();
+        this.sketch = null;
+        lastWord = new ParallelCorpusBuilder(parallelism).build(corpus.toPath(), graph);
+        for (String word : graph.vertices()) {
+            words.intern(word, 0, word.length());
         }
         checkRep();
     }
 
-    public String poem(String input) {
-        String[] words = input.split("\\s+");
-        StringBuilder poem = new StringBuilder();
+    private GraphPoet(Graph<String> graph) {
+        this.graph = graph;
+        this.words = new WordTable();
+        this.sketch = null;
+        this.readOnly = true;
+        checkRep();
+    }
 
-        for (int i = 0; i < words.length - 1; i++) {
-            String word1 = words[i].toLowerCase();
-            String word2 = words[i + 1].toLowerCase();
+    // Opens a snapshot written by save(). The graph is memory-mapped rather
+    // than read, so loading takes about the same time for any corpus size.
+    // The snapshot does not record the corpus's last word, so the first
+    // append() after load() cannot join onto the old text, and words are
+    // interned only as new text is appended.
+    public static GraphPoet load(Path snapshot) throws IOException {
+        return new GraphPoet(MappedGraph.open(snapshot));
+    }
+
+    // Writes the word graph to a binary snapshot that load() can map.
+    public void save(Path snapshot) throws IOException {
+        MappedGraph.write(graph, snapshot);
+    }
+
+    // Streams more corpus text into the graph, adding to the weights of
+    // bigrams seen before. If join is true, the last word of the text read so
+    // far and the first word of the new text also count as a bigram. A bridge
+    // index, if in use, drops only the rows the new bigrams can change.
+    public void append(Path corpus, boolean join) throws IOException {
+        long start = metrics.enabled() ? System.nanoTime() : 0;
+        CorpusTokenizer tokenizer = new CorpusTokenizer(words, sketch == null);
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            tokenizer.bigrams(channel, this::addBigram);
+        }
+        appended(tokenizer, join, start);
+    }
+
+    // Like append(Path, boolean), for text that is already decoded. The
+    // reader is read to the end but not closed.
+    public void append(Reader text, boolean join) throws IOException {
+        long start = metrics.enabled() ? System.nanoTime() : 0;
+        CorpusTokenizer tokenizer = new CorpusTokenizer(words, sketch == null);
+        tokenizer.bigrams(text, this::addBigram);
+        appended(tokenizer, join, start);
+    }
 
-            poem.append(words[i]).append(" ");
-            String bridge = findBridge(word1, word2);
-            if (bridge != null) {
-                poem.append(bridge).append(" ");
+    // start is 0 if metrics were disabled when the append began.
+    private void appended(CorpusTokenizer tokenizer, boolean join, long start) {
+        if (join && lastWord != null && tokenizer.first() != null) {
+            addBigram(lastWord, tokenizer.first());
+        }
+        if (tokenizer.previous() != null) lastWord = tokenizer.previous();
+        clearCaches();
+        if (start != 0 && metrics.enabled()) appendLatency.record(System.nanoTime() - start);
+        checkRep();
+    }
+
+    // Answers poem() from a bridge index over the graph from now on. An eager
+    // index is built right away; a lazy one fills in a row per first word as
+    // poem() asks for it.
+    public void useBridgeIndex(boolean eager) {
+        if (bridges == null) {
+            bridges = new BridgeIndex<>(graph);
+            graph = bridges;
+        }
+        if (eager) bridges.buildAll();
+    }
+
+    // Remembers the bridges of up to maxPairs word pairs from now on, so a
+    // pair that comes up again costs one lookup instead of a search. Pass 0
+    // to stop caching. The cache is cleared by append() only; if the graph
+    // given to the constructor is changed directly, call this again to drop
+    // bridges that may be stale.
+    public void cacheBridges(long maxPairs) {
+        if (maxPairs < 0) throw new IllegalArgumentException("Cache size cannot be negative");
+        bridgeCache = maxPairs == 0 ? null : new LruCache<>(maxPairs);
+    }
+
+    // Remembers the poems of repeated inputs from now on, up to maxChars
+    // characters of inputs and poems in all. Pass 0 to stop caching. Like the
+    // bridge cache, it is cleared by append() only; call this again after
+    // changing the graph directly.
+    public void cachePoems(long maxChars) {
+        if (maxChars < 0) throw new IllegalArgumentException("Cache size cannot be negative");
+        poemCache = maxChars == 0 ? null
+                : new LruCache<>(maxChars, (input, poem) -> input.length() + poem.length());
+    }
+
+    // Returns the hits, misses and evictions of the bridge cache, or
+    // Stats.NONE if it is off.
+    public LruCache.Stats bridgeCacheStats() {
+        return bridgeCache == null ? LruCache.Stats.NONE : bridgeCache.stats();
+    }
+
+    // Returns the hits, misses and evictions of the poem cache, or Stats.NONE
+    // if it is off.
+    public LruCache.Stats poemCacheStats() {
+        return poemCache == null ? LruCache.Stats.NONE : poemCache.stats();
+    }
+
+    private void clearCaches() {
+        if (bridgeCache != null) bridgeCache.clear();
+        if (poemCache != null) poemCache.clear();
+    }
+
+    private void addBigram(String word1, String word2) {
+        if (readOnly) copySnapshot();
+        if (sketch != null) {
+            if (sketch.add(graph, word1, word2)) {
+                words.intern(word1, 0, word1.length());
+                words.intern(word2, 0, word2.length());
             }
+        } else {
+            graph.increment(word1, word2, 1);
         }
-        poem.append(words[words.length - 1]);
-        return poem.toString();
+        if (metrics.enabled()) bigrams.increment();
     }
 
-    private String findBridge(String word1, String word2) {
-        String bridge = null;
-        int maxWeight = 0;
+    // Replaces a loaded snapshot with a mutable copy, the first time new text
+    // is appended to it.
+    private void copySnapshot() {
+        Graph<String> copy = Graph.empty();
+        copy.addAll(graph.vertices());
+        Map<Pair<String>, Integer> weights = new HashMap<>();
+        for (String source : graph.vertices()) {
+            for (Map.Entry<String, Integer> edge : graph.targets(source).entrySet()) {
+                weights.put(new Pair<>(source, edge.getKey()), edge.getValue());
+            }
+        }
+        copy.setAll(weights);
+        graph = copy;
+        if (bridges != null) {
+            bridges = new BridgeIndex<>(copy);
+            graph = bridges;
+        }
+        readOnly = false;
+    }
 
-        for (String candidate : graph.targets(word1).keySet()) {
-            if (graph.targets(candidate).containsKey(word2)) {
-                int weight = graph.targets(word1).get(candidate) + graph.targets(candidate).get(word2);
-                if (weight > maxWeight) {
-                    maxWeight = weight;
-                    bridge = candidate;
+    public String poem(String input) {
+        return writePoem(input, new StringBuilder());
+    }
+
+    // Writes a poem for every input on `parallelism` fork/join workers and
+    // returns them in input order. The graph is only read, so the workers
+    // share it; do not append() while a batch is running.
+    public List<String> poems(List<String> inputs, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        String[] poems = new String[inputs.size()];
+        int batch = Math.max(1, inputs.size() / (parallelism * 8));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new PoemTask(inputs, poems, 0, poems.length, batch));
+        } finally {
+            pool.shutdown();
+        }
+        return Arrays.asList(poems);
+    }
+
+    // Writes the poems for inputs [start, end); each leaf reuses one buffer
+    // for all of its inputs.
+    @SuppressWarnings("serial")
+    private final class PoemTask extends RecursiveAction {
+        private final List<String> inputs;
+        private final String[] poems;
+        private final int start;
+        private final int end;
+        private final int batch;
+
+        PoemTask(List<String> inputs, String[] poems, int start, int end, int batch) {
+            this.inputs = inputs;
+            this.poems = poems;
+            this.start = start;
+            this.end = end;
+            this.batch = batch;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= batch) {
+                StringBuilder poem = new StringBuilder();
+                for (int i = start; i < end; i++) {
+                    poems[i] = writePoem(inputs.get(i), poem);
                 }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new PoemTask(inputs, poems, start, middle, batch),
+                    new PoemTask(inputs, poems, middle, end, batch));
+        }
+    }
+
+    // Returns the registry of this poet's metrics: poem() latency and an
+    // estimate of the bytes each poem allocates, append() latency, bigrams
+    // read, bridge lookups and how many found a bridge, and bridge candidates
+    // scanned when no bridge index is in use. Recording is off by default.
+    // To measure the graph's own operations too, build the poet on an
+    // InstrumentedGraph.
+    public Metrics metrics() {
+        return metrics;
+    }
+
+    // Returns the poem for input, from the poem cache if it is there, using
+    // poem as a scratch buffer.
+    private String writePoem(String input, StringBuilder poem) {
+        if (!metrics.enabled()) return cachedPoem(input, poem);
+        long allocated = Metrics.allocatedBytes();
+        long start = System.nanoTime();
+        String result = cachedPoem(input, poem);
+        poemLatency.record(System.nanoTime() - start);
+        if (allocated >= 0) poemAllocation.add(Metrics.allocatedBytes() - allocated);
+        return result;
+    }
+
+    private String cachedPoem(String input, StringBuilder poem) {
+        LruCache<String, String> cache = poemCache;
+        String result = cache == null ? null : cache.get(input);
+        if (result != null) return result;
+        poem.setLength(0);
+        compose(input, poem);
+        result = poem.toString();
+        if (cache != null) cache.put(input, result);
+        return result;
+    }
+
+    // Copies the words of input to poem separated by single spaces, with the
+    // best bridge between each adjacent pair. Words are found in place, and
+    // their keys come from the word table, so only the output and one bridge
+    // search are allocated for words in the vocabulary.
+    private void compose(String input, StringBuilder poem) {
+        BridgeSearch search = new BridgeSearch();
+        String previous = null;
+        boolean first = true;
+        int end = 0;
+        while (true) {
+            int start = end;
+            while (start < input.length() && CorpusTokenizer.isWhitespace(input.charAt(start))) start++;
+            if (start == input.length()) return;
+            end = start;
+            while (end < input.length() && !CorpusTokenizer.isWhitespace(input.charAt(end))) end++;
+
+            String word = key(input, start, end);
+            if (!first) {
+                poem.append(' ');
+                String bridge = bridge(previous, word, search);
+                if (bridge != null) poem.append(bridge).append(' ');
+            }
+            poem.append(input, start, end);
+            previous = word;
+            first = false;
+        }
+    }
+
+    // Returns the key of input[start, end), allocating only if it has not
+    // been interned: a word outside the vocabulary, or one a loaded snapshot
+    // holds but this process has not read.
+    private String key(String input, int start, int end) {
+        String key = words.lookup(input, start, end);
+        return key != null ? key : WordTable.key(input, start, end);
+    }
+
+    // For tests: the number of words interned.
+    int vocabularySize() {
+        return words.size();
+    }
+
+    // Cached in place of null for pairs that have no bridge; no word is empty.
+    private static final String NO_BRIDGE = "";
+
+    private String bridge(String word1, String word2, BridgeSearch search) {
+        if (word1 == null || word2 == null) return null;
+        LruCache<Pair<String>, String> cache = bridgeCache;
+        Pair<String> pair = cache == null ? null : new Pair<>(word1, word2);
+        String bridge = cache == null ? null : cache.get(pair);
+        if (bridge == null) {
+            if (bridges != null) {
+                bridge = bridges.bridge(word1, word2);
+            } else {
+                bridge = search.find(graph, sketch, word1, word2);
+                if (metrics.enabled()) candidatesScanned.add(search.scanned);
             }
+            if (cache != null) cache.put(pair, bridge == null ? NO_BRIDGE : bridge);
+        }
+        if (bridge != null && bridge.isEmpty()) bridge = null;
+        if (metrics.enabled()) {
+            bridgeLookups.increment();
+            if (bridge != null) bridgeHits.increment();
         }
         return bridge;
     }
 
+    // Finds the best bridge from word1 to word2 by visiting word1's targets
+    // and looking up each one's edge into word2, so no maps are built and
+    // nothing is allocated. The best bridge has the largest total weight; ties
+    // go to the heavier first hop, then to the candidate visited first, which
+    // is the rule BridgeIndex uses too, so both always pick the same word. One
+    // search is reused for every pair of words in a poem.
+    //
+    // In approximate mode a hop that is not an edge is weighed by the
+    // sketch's estimate, if it is above the sketch's error bound, and word2's
+    // sources are visited as well, so a bridge needs only one of its hops to
+    // be a promoted edge. An estimate within the error bound may be nothing
+    // but collisions, so such a hop counts as missing.
+    private static final class BridgeSearch implements ObjIntConsumer<String> {
+        private Graph<String> graph;
+        private BigramSketch sketch;
+        private String word1;
+        private String word2;
+        private boolean fromSources;
+        private String bridge;
+        private long bestScore;
+        private int bestFirst;
+        private int scanned;
+
+        String find(Graph<String> graph, BigramSketch sketch, String word1, String word2) {
+            this.graph = graph;
+            this.sketch = sketch;
+            this.word1 = word1;
+            this.word2 = word2;
+            bridge = null;
+            bestScore = 0;
+            bestFirst = 0;
+            scanned = 0;
+            fromSources = false;
+            if (sketch != null || graph.inDegree(word2) > 0) graph.forEachTarget(word1, this);
+            if (sketch != null) {
+                fromSources = true;
+                graph.forEachSource(word2, this);
+            }
+            return bridge;
+        }
+
+        @Override
+        public void accept(String candidate, int weight) {
+            int first;
+            int second;
+            if (!fromSources) {
+                first = weight;
+                second = graph.weight(candidate, word2);
+                if (second == 0 && sketch != null) second = sketch.trustedEstimate(candidate, word2);
+            } else {
+                // candidates with an edge from word1 were weighed on the first pass
+                if (graph.weight(word1, candidate) > 0) return;
+                first = sketch.trustedEstimate(word1, candidate);
+                second = weight;
+            }
+            scanned++;
+            if (first == 0 || second == 0) return;
+            long score = (long) first + second;
+            if (score > bestScore || (score == bestScore && first > bestFirst)) {
+                bestScore = score;
+                bestFirst = first;
+                bridge = candidate;
+            }
+        }
+    }
+
+    // The walk touches every edge, so it only runs when assertions are enabled,
+    // and then only after the builds and appends graph.validation picks. In
+    // incremental mode it never runs: the graph already checks each bigram
+    // it is given.
     private void checkRep() {
+        assert !validation.checksAll(++appends) || wellFormed();
+    }
+
+    private boolean wellFormed() {
         for (String vertex : graph.vertices()) {
             assert vertex != null;
-            for (String target : graph.targets(vertex).keySet()) {
-                assert target != null;
-                assert graph.targets(vertex).get(target) > 0;
+            for (Map.Entry<String, Integer> edge : graph.targets(vertex).entrySet()) {
+                assert edge.getKey() != null;
+                assert edge.getValue() > 0;
             }
         }
+        return true;
     }
 
     @Override
@@ -0,0 +1,208 @@
+package poet;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded map that evicts its least recently used entries, for results
+ * that are expensive to compute and often asked for again.
+ *
+ * <p>Every entry has a weight, 1 unless a weigher says otherwise, and the
+ * cache holds at most capacity in total weight; an entry heavier than its
+ * share is not cached at all. Keys are spread over up to 16 stripes, each an
+ * access-ordered LinkedHashMap behind its own lock with an equal share of the
+ * capacity. So eviction is least-recently-used within a stripe, which is
+ * close to LRU overall, and threads that touch different stripes do not
+ * contend. Hits, misses and evictions are counted from creation on.
+ *
+ * <p>Null keys and values are not allowed.
+ */
+public final class LruCache<K, V> {
+
+    private static final int MAX_STRIPES = 16;
+    // A stripe is made only for every this many units of capacity, so small
+    // caches are not split into shares too small to hold anything.
+    private static final int MIN_STRIPE_CAPACITY = 64;
+
+    private final Stripe<K, V>[] stripes;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static final class Stripe<K, V> {
+        final Map<K, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+        final long capacity;
+        long weight = 0;
+
+        Stripe(long capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    // Rep invariant:
+    //   stripes.length is a power of two; in each stripe, weight is the total
+    //   weight of its entries and 0 <= weight <= capacity
+    private void checkRep(Stripe<K, V> stripe) {
+        assert stripe.weight >= 0 && stripe.weight <= stripe.capacity : "Stripe should fit its capacity";
+    }
+
+    /**
+     * Makes a cache of at most capacity entries.
+     *
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    public LruCache(long capacity) {
+        this(capacity, (key, value) -> 1);
+    }
+
+    /**
+     * Makes a cache of at most capacity in total weight, where weigher gives
+     * the weight of an entry; it must give the same non-negative weight every
+     * time it is asked about the same entry.
+     *
+     * @throws IllegalArgumentException if capacity is less than 1
+     */
+    @SuppressWarnings("unchecked")
+    public LruCache(long capacity, ToIntBiFunction<? super K, ? super V> weigher) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+        int count = (int) Math.min(MAX_STRIPES, Long.highestOneBit(Math.max(1, capacity / MIN_STRIPE_CAPACITY)));
+        // Java cannot create an array of Stripe<K, V>; every element is one.
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>(capacity / count);
+        }
+        this.weigher = weigher;
+    }
+
+    private Stripe<K, V> stripe(Object key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (stripes.length - 1)];
+    }
+
+    /** Returns the value cached for key, marking it most recently used; or null if there is none. */
+    public V get(K key) {
+        Stripe<K, V> stripe = stripe(key);
+        V value;
+        synchronized (stripe) {
+            value = stripe.entries.get(key);
+        }
+        (value == null ? misses : hits).increment();
+        return value;
+    }
+
+    /**
+     * Caches value for key, replacing any value cached before, and evicts the
+     * least recently used entries of key's stripe until it fits again.
+     *
+     * @throws IllegalArgumentException if the weigher gives a negative weight
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) throw new IllegalArgumentException("Keys and values cannot be null");
+        int weight = weigher.applyAsInt(key, value);
+        if (weight < 0) throw new IllegalArgumentException("Weight cannot be negative");
+        Stripe<K, V> stripe = stripe(key);
+        synchronized (stripe) {
+            V previous = stripe.entries.remove(key);
+            if (previous != null) stripe.weight -= weigher.applyAsInt(key, previous);
+            if (weight <= stripe.capacity) {
+                stripe.entries.put(key, value);
+                stripe.weight += weight;
+                Iterator<Map.Entry<K, V>> eldest = stripe.entries.entrySet().iterator();
+                while (stripe.weight > stripe.capacity) {
+                    Map.Entry<K, V> entry = eldest.next();
+                    stripe.weight -= weigher.applyAsInt(entry.getKey(), entry.getValue());
+                    eldest.remove();
+                    evictions.increment();
+                }
+            }
+            checkRep(stripe);
+        }
+    }
+
+    /** Removes every entry; the statistics are kept. */
+    public void clear() {
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.entries.clear();
+                stripe.weight = 0;
+            }
+        }
+    }
+
+    /** Returns the number of entries cached. */
+    public long size() {
+        long size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.entries.size();
+            }
+        }
+        return size;
+    }
+
+    /** Returns the total weight of the entries cached. */
+    public long weight() {
+        long weight = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                weight += stripe.weight;
+            }
+        }
+        return weight;
+    }
+
+    /** Returns the hit, miss and eviction counts so far and the current size. */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size());
+    }
+
+    /** A snapshot of a cache's statistics. Immutable. */
+    public static final class Stats {
+
+        /** The statistics of a cache that is not in use. */
+        public static final Stats NONE = new Stats(0, 0, 0, 0);
+
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long size;
+
+        Stats(long hits, long misses, long evictions, long size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        public long evictions() {
+            return evictions;
+        }
+
+        public long size() {
+            return size;
+        }
+
+        /** Returns hits over lookups, or 0 if there have been no lookups. */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + hits + " misses=" + misses + " evictions=" + evictions + " size=" + size;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package poet;
+
+import graph.Graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the bigrams of a corpus with fork/join over byte ranges of the file,
+ * then adds the merged counts to a graph.
+ *
+ * <p>Each leaf task tokenizes its own range and counts the bigrams inside it.
+ * A worker reuses one CorpusTokenizer, with its chunk buffer and word table,
+ * for every leaf it runs, so small shards do not each allocate a buffer. Joining two adjacent ranges adds the one bigram that
+ * spans their boundary, so the counts, and therefore the graph, are exactly
+ * those of a sequential build.
+ */
+final class ParallelCorpusBuilder {
+
+    static final long MIN_SHARD_SIZE = 1 << 20;
+
+    private final int parallelism;
+    private final long shardSize;
+
+    ParallelCorpusBuilder(int parallelism) {
+        this(parallelism, 0);
+    }
+
+    // shardSize 0 picks a size that gives each worker a few shards.
+    ParallelCorpusBuilder(int parallelism, long shardSize) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+        this.shardSize = shardSize;
+    }
+
+    /**
+     * Adds every bigram of corpus to graph, incrementing existing weights.
+     * Returns the last word of the corpus, or null if it has none.
+     *
+     * @throws IOException if the corpus cannot be read or is not valid UTF-8
+     */
+    String build(Path corpus, Graph<String> graph) throws IOException {
+        BigramCounts counts;
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long shard = shardSize > 0 ? shardSize : Math.max(MIN_SHARD_SIZE, size / (parallelism * 4L) + 1);
+            ThreadLocal<CorpusTokenizer> tokenizers = ThreadLocal.withInitial(CorpusTokenizer::new);
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                counts = pool.invoke(new CountTask(channel, tokenizers, 0, Math.max(size, 1), shard));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+        for (Map.Entry<String, Map<String, int[]>> row : counts.counts.entrySet()) {
+            String word1 = row.getKey();
+            for (Map.Entry<String, int[]> count : row.getValue().entrySet()) {
+                graph.increment(word1, count.getKey(), count.getValue()[0]);
+            }
+        }
+        return counts.last;
+    }
+
+    // Bigram counts of one contiguous byte range, with the words at its edges.
+    static final class BigramCounts {
+        final Map<String, Map<String, int[]>> counts = new HashMap<>();
+        String first;
+        String last;
+        long size;
+
+        void add(String word1, String word2, int count) {
+            int[] cell = counts.computeIfAbsent(word1, k -> new HashMap<>()).get(word2);
+            if (cell == null) {
+                counts.get(word1).put(word2, new int[] { count });
+                size++;
+            } else {
+                cell[0] += count;
+            }
+        }
+
+        // Merges the counts of the range that directly follows this one.
+        static BigramCounts join(BigramCounts left, BigramCounts right) {
+            BigramCounts into = left.size >= right.size ? left : right;
+            BigramCounts from = into == left ? right : left;
+            for (Map.Entry<String, Map<String, int[]>> row : from.counts.entrySet()) {
+                for (Map.Entry<String, int[]> count : row.getValue().entrySet()) {
+                    into.add(row.getKey(), count.getKey(), count.getValue()[0]);
+                }
+            }
+            if (left.last != null && right.first != null) into.add(left.last, right.first, 1);
+            into.first = left.first != null ? left.first : right.first;
+            into.last = right.last != null ? right.last : left.last;
+            return into;
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class CountTask extends RecursiveTask<BigramCounts> {
+        private final FileChannel channel;
+        private final ThreadLocal<CorpusTokenizer> tokenizers;
+        private final long start;
+        private final long end;
+        private final long shardSize;
+
+        CountTask(FileChannel channel, ThreadLocal<CorpusTokenizer> tokenizers, long start, long end, long shardSize) {
+            this.channel = channel;
+            this.tokenizers = tokenizers;
+            this.start = start;
+            this.end = end;
+            this.shardSize = shardSize;
+        }
+
+        @Override
+        protected BigramCounts compute() {
+            if (end - start <= shardSize) {
+                return countRange();
+            }
+            long middle = start + (end - start) / 2;
+            CountTask right = new CountTask(channel, tokenizers, middle, end, shardSize);
+            right.fork();
+            BigramCounts left = new CountTask(channel, tokenizers, start, middle, shardSize).compute();
+            return BigramCounts.join(left, right.join());
+        }
+
+        private BigramCounts countRange() {
+            BigramCounts counts = new BigramCounts();
+            CorpusTokenizer tokenizer = tokenizers.get();
+            tokenizer.reset();
+            try {
+                tokenizer.bigrams(channel, start, end, (word1, word2) -> counts.add(word1, word2, 1));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            counts.first = tokenizer.first();
+            counts.last = tokenizer.previous();
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package poet;
+
+import graph.SymbolTable;
+
+/**
+ * A case-insensitive intern table that maps windows of text to one canonical
+ * key String per distinct word.
+ *
+ * <p>The key of a window is its text with leading and trailing characters that
+ * are not letters or digits removed, folded to lower case one char at a time
+ * with Character.toLowerCase. So "World!", "world" and "(WORLD" all have the
+ * key "world", and a window of only punctuation has no key. lookup() hashes
+ * and compares the window in place, so finding a word that is already in the
+ * table allocates nothing.
+ *
+ * <p>New keys are interned in a SymbolTable, which can be shared with the
+ * graph the words go into so that both hold the same instances.
+ *
+ * <p>Not thread-safe for intern(); any number of threads may lookup() while
+ * nobody interns.
+ */
+final class WordTable {
+
+    private String[] keys = new String[64];
+    private int[] hashes = new int[64];
+    private int size = 0;
+    private final SymbolTable<String> symbols;
+
+    WordTable() {
+        this(new SymbolTable<>());
+    }
+
+    WordTable(SymbolTable<String> symbols) {
+        this.symbols = symbols;
+    }
+
+    // Rep invariant:
+    //   keys.length is a power of two, more than size * 4 / 3
+    //   every non-null keys[i] is a distinct key and hashes[i] is its hash
+    private void checkRep() {
+        assert Integer.bitCount(keys.length) == 1 : "Capacity should be a power of two";
+        assert size * 4 < keys.length * 3 : "Table should be at most 3/4 full";
+    }
+
+    /**
+     * Returns the canonical key of text[start, end), or null if the window has
+     * no key or its key has not been interned.
+     */
+    String lookup(CharSequence text, int start, int end) {
+        int from = keyStart(text, start, end);
+        int to = keyEnd(text, from, end);
+        if (from == to) return null;
+        return keys[slot(text, from, to, hash(text, from, to))];
+    }
+
+    /**
+     * Returns the canonical key of text[start, end), adding it to the table if
+     * it is new, or null if the window has no key.
+     */
+    String intern(CharSequence text, int start, int end) {
+        int from = keyStart(text, start, end);
+        int to = keyEnd(text, from, end);
+        if (from == to) return null;
+        int hash = hash(text, from, to);
+        int slot = slot(text, from, to, hash);
+        if (keys[slot] != null) return keys[slot];
+
+        String key = symbols.intern(fold(text, from, to));
+        keys[slot] = key;
+        hashes[slot] = hash;
+        if (++size * 4 >= keys.length * 3) grow();
+        checkRep();
+        return key;
+    }
+
+    /** Returns the number of keys in the table. */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the key of text[start, end) as a new String, or null if the
+     * window has no key. Does not use or change any table.
+     */
+    static String key(CharSequence text, int start, int end) {
+        int from = keyStart(text, start, end);
+        int to = keyEnd(text, from, end);
+        return from == to ? null : fold(text, from, to);
+    }
+
+    private static int keyStart(CharSequence text, int start, int end) {
+        while (start < end && !Character.isLetterOrDigit(text.charAt(start))) start++;
+        return start;
+    }
+
+    private static int keyEnd(CharSequence text, int start, int end) {
+        while (end > start && !Character.isLetterOrDigit(text.charAt(end - 1))) end--;
+        return end;
+    }
+
+    private static String fold(CharSequence text, int start, int end) {
+        char[] folded = new char[end - start];
+        for (int i = start; i < end; i++) {
+            folded[i - start] = Character.toLowerCase(text.charAt(i));
+        }
+        return new String(folded);
+    }
+
+    private static int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + Character.toLowerCase(text.charAt(i));
+        }
+        return h ^ (h >>> 16);
+    }
+
+    // Returns the slot holding the key of text[start, end), or the empty slot
+    // where it would go.
+    private int slot(CharSequence text, int start, int end, int hash) {
+        int mask = keys.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            String key = keys[slot];
+            if (key == null || (hashes[slot] == hash && matches(key, text, start, end))) return slot;
+        }
+    }
+
+    private static boolean matches(String key, CharSequence text, int start, int end) {
+        if (key.length() != end - start) return false;
+        for (int i = start; i < end; i++) {
+            if (key.charAt(i - start) != Character.toLowerCase(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = oldHashes[i] & mask;
+            while (keys[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+}
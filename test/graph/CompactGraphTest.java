@@ -0,0 +1,122 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompactGraph, on top of the shared Graph instance tests.
+ */
+public class CompactGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   set(): new edge, update, remove, before and after compact()
+    //   remove(): vertex with incoming, outgoing and self edges; added again
+    //     before compact(), with edges that were in the base
+    //   views: reflect later mutations, survive compaction
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return new CompactGraph<>();
+    }
+
+    @Test
+    public void testSetAcrossCompaction() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 1);
+        graph.set("A", "C", 2);
+        graph.compact();
+
+        assertEquals(1, graph.set("A", "B", 5));
+        assertEquals(2, graph.set("A", "C", 0));
+        assertEquals(0, graph.set("A", "D", 3));
+
+        Map<String, Integer> targets = graph.targets("A");
+        assertEquals(2, targets.size());
+        assertEquals(5, (int) targets.get("B"));
+        assertEquals(3, (int) targets.get("D"));
+        assertFalse(targets.containsKey("C"));
+
+        graph.compact();
+        assertEquals(2, targets.size());
+        assertEquals(3, (int) graph.sources("D").get("A"));
+        assertTrue(graph.sources("C").isEmpty());
+    }
+
+    @Test
+    public void testViewsAreLive() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.add("A");
+        Map<String, Integer> targets = graph.targets("A");
+        assertTrue(targets.isEmpty());
+
+        graph.set("A", "B", 4);
+        assertEquals(1, targets.size());
+        assertEquals(4, (int) targets.get("B"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsAreReadOnly() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 1);
+        graph.targets("A").put("C", 1);
+    }
+
+    @Test
+    public void testRemoveVertexWithSelfLoop() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "A", 1);
+        graph.set("A", "B", 2);
+        graph.set("C", "A", 3);
+        graph.compact();
+
+        assertTrue(graph.remove("A"));
+        assertTrue(graph.sources("B").isEmpty());
+        assertTrue(graph.targets("C").isEmpty());
+
+        graph.compact();
+        assertEquals(2, graph.vertices().size());
+        assertEquals(0, graph.set("C", "B", 1));
+        assertEquals(1, (int) graph.sources("B").get("C"));
+    }
+
+    @Test
+    public void testRemovedVertexAddedBackBeforeCompaction() {
+        CompactGraph<String> graph = new CompactGraph<>();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.compact();
+
+        assertTrue(graph.remove("B"));
+        assertFalse(graph.vertices().contains("B"));
+        assertEquals(0, graph.weight("A", "B"));
+
+        assertTrue(graph.add("B"));
+        assertTrue(graph.targets("B").isEmpty());
+        assertEquals(0, graph.set("A", "B", 5));
+        assertEquals(5, (int) graph.sources("B").get("A"));
+        assertEquals(1, graph.outDegree("A"));
+
+        graph.compact();
+        assertEquals(3, graph.vertices().size());
+        assertEquals(5, graph.weight("A", "B"));
+        assertEquals(0, graph.weight("B", "C"));
+    }
+
+    @Test
+    public void testManyEdgesTriggerCompaction() {
+        CompactGraph<Integer> graph = new CompactGraph<>();
+        for (int i = 0; i < 5000; i++) {
+            graph.set(i % 50, i, i + 1);
+        }
+        for (int i = 0; i < 5000; i += 2) {
+            graph.remove(i);
+        }
+        for (int i = 1; i < 5000; i += 2) {
+            assertEquals(i + 1, (int) graph.sources(i).get(i % 50));
+        }
+        assertEquals(2500, graph.vertices().size());
+    }
+}
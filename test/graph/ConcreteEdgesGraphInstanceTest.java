@@ -0,0 +1,12 @@
+package graph;
+
+/**
+ * Runs the shared Graph instance tests against ConcreteEdgesGraph.
+ */
+public class ConcreteEdgesGraphInstanceTest extends GraphInstanceTest {
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return new ConcreteEdgesGraph<>();
+    }
+}
@@ -5,7 +5,10 @@ package graph;
 
 import org.junit.Test;
 import static org.junit.Assert.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 public class ConcreteEdgesGraphTest {
@@ -14,7 +17,7 @@ public class ConcreteEdgesGraphTest {
 
     @Test
     public void testEdgeCreation() {
-        ConcreteEdgesGraph.Edge edge = new ConcreteEdgesGraph.Edge("A", "B", 5);
+        ConcreteEdgesGraph.Edge<String> edge = new ConcreteEdgesGraph.Edge<>("A", "B", 5);
         assertEquals("A", edge.getSource());
         assertEquals("B", edge.getTarget());
         assertEquals(5, edge.getWeight());
@@ -22,20 +25,20 @@ public class ConcreteEdgesGraphTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void testEdgeNegativeWeight() {
-        new ConcreteEdgesGraph.Edge("A", "B", -1);
+        new ConcreteEdgesGraph.Edge<>("A", "B", -1);
     }
 
     @Test
     public void testEdgeToString() {
-        ConcreteEdgesGraph.Edge edge = new ConcreteEdgesGraph.Edge("A", "B", 5);
+        ConcreteEdgesGraph.Edge<String> edge = new ConcreteEdgesGraph.Edge<>("A", "B", 5);
         assertEquals("A -> B (5)", edge.toString());
     }
 
     @Test
     public void testEdgeEquality() {
-        ConcreteEdgesGraph.Edge edge1 = new ConcreteEdgesGraph.Edge("A", "B", 5);
-        ConcreteEdgesGraph.Edge edge2 = new ConcreteEdgesGraph.Edge("A", "B", 5);
-        ConcreteEdgesGraph.Edge edge3 = new ConcreteEdgesGraph.Edge("A", "C", 5);
+        ConcreteEdgesGraph.Edge<String> edge1 = new ConcreteEdgesGraph.Edge<>("A", "B", 5);
+        ConcreteEdgesGraph.Edge<String> edge2 = new ConcreteEdgesGraph.Edge<>("A", "B", 5);
+        ConcreteEdgesGraph.Edge<String> edge3 = new ConcreteEdgesGraph.Edge<>("A", "C", 5);
         assertEquals(edge1, edge2);
         assertNotEquals(edge1, edge3);
     }
@@ -44,14 +47,14 @@ public class ConcreteEdgesGraphTest {
 
     @Test
     public void testAddVertex() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         assertTrue(graph.add("A"));
         assertFalse(graph.add("A")); // vertex already exists
     }
 
     @Test
     public void testSetEdge() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         graph.add("A");
         graph.add("B");
         
@@ -62,7 +65,7 @@ public class ConcreteEdgesGraphTest {
 
     @Test
     public void testRemoveVertex() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -74,7 +77,7 @@ public class ConcreteEdgesGraphTest {
 
     @Test
     public void testVertices() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         graph.add("A");
         graph.add("B");
 
@@ -86,7 +89,7 @@ public class ConcreteEdgesGraphTest {
 
     @Test
     public void testSources() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.add("C");
@@ -101,7 +104,7 @@ public class ConcreteEdgesGraphTest {
 
     @Test
     public void testTargets() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.add("C");
@@ -114,9 +117,34 @@ public class ConcreteEdgesGraphTest {
         assertEquals(3, (int) targets.get("C"));
     }
 
+    @Test
+    public void testSetZeroRemovesEdgeFromBothIndexes() {
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
+        graph.set("A", "B", 5);
+        graph.set("C", "B", 3);
+
+        assertEquals(5, graph.set("A", "B", 0));
+        assertFalse(graph.targets("A").containsKey("B"));
+        assertEquals(1, graph.sources("B").size());
+        assertEquals(3, (int) graph.sources("B").get("C"));
+    }
+
+    @Test
+    public void testRemoveVertexClearsIncomingAndOutgoing() {
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+
+        assertTrue(graph.remove("B"));
+        assertTrue(graph.targets("A").isEmpty());
+        assertTrue(graph.sources("C").isEmpty());
+        assertEquals(3, (int) graph.targets("C").get("A"));
+    }
+
     @Test
     public void testToString() {
-        ConcreteEdgesGraph graph = new ConcreteEdgesGraph();
+        ConcreteEdgesGraph<String> graph = new ConcreteEdgesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -124,4 +152,59 @@ public class ConcreteEdgesGraphTest {
         String expected = "Vertices: [A, B]\nEdges:\n  A -> B (5)\n";
         assertEquals(expected, graph.toString());
     }
+
+    @Test
+    public void testTopTargetsStayOrderedUnderRandomEdits() {
+        ConcreteEdgesGraph<Integer> graph = new ConcreteEdgesGraph<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            int target = random.nextInt(200);
+            int previous = graph.targets(0).getOrDefault(target, 0);
+            int choice = random.nextInt(10);
+            if (choice < 7) {
+                graph.increment(0, target, 1);
+            } else if (choice < 9) {
+                graph.set(0, target, random.nextInt(6));
+            } else if (previous > 0) {
+                graph.increment(0, target, -previous);
+            }
+        }
+        Map<Integer, Integer> targets = graph.targets(0);
+        List<Integer> weights = new ArrayList<>();
+        for (int weight : graph.topTargets(0, Integer.MAX_VALUE).values()) {
+            weights.add(weight);
+        }
+        List<Integer> expected = new ArrayList<>(targets.values());
+        expected.sort((a, b) -> b - a);
+        assertEquals(expected, weights);
+        assertEquals(targets, graph.topTargets(0, Integer.MAX_VALUE));
+        for (Map.Entry<Integer, Integer> edge : graph.topSources(7, 1).entrySet()) {
+            assertEquals(targets.get(7), edge.getValue());
+        }
+    }
+
+    @Test
+    public void testCompactDropsLabelsOfRemovedVertices() {
+        ConcreteEdgesGraph<Integer> owned = new ConcreteEdgesGraph<>();
+        SymbolTable<Integer> symbols = new SymbolTable<>();
+        ConcreteEdgesGraph<Integer> shared = new ConcreteEdgesGraph<>(symbols);
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            owned.set(i, i + 1, 1);
+            shared.set(i, i + 1, 1);
+            if (i >= 10) removed.add(i);
+        }
+        owned.removeAll(removed);
+        shared.removeAll(removed);
+        owned.compact();
+        shared.compact();
+        assertEquals("An owned table should keep only the vertices left", 11, owned.symbolCount());
+        assertEquals("A shared table should not be rebuilt", 101, shared.symbolCount());
+        assertEquals(symbols.size(), shared.symbolCount());
+
+        assertEquals(1, owned.weight(8, 9));
+        owned.set(500, 0, 2);
+        assertEquals(1, owned.sources(0).size());
+        assertEquals(12, owned.symbolCount());
+    }
 }
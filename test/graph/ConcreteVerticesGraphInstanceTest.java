@@ -0,0 +1,12 @@
+package graph;
+
+/**
+ * Runs the shared Graph instance tests against ConcreteVerticesGraph.
+ */
+public class ConcreteVerticesGraphInstanceTest extends GraphInstanceTest {
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return new ConcreteVerticesGraph<>();
+    }
+}
@@ -3,6 +3,8 @@ package graph;
 import graph.ConcreteVerticesGraph;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -14,14 +16,14 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testGraphAddVertex() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         assertTrue("New vertex should be added successfully.", graph.add("A"));
         assertFalse("Adding duplicate vertex should return false.", graph.add("A"));
     }
 
     @Test
     public void testGraphSetEdge() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
 
@@ -36,7 +38,7 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testGraphSetEdgeToRemove() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -48,7 +50,7 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testGraphRemoveVertex() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -60,7 +62,7 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testGraphVertices() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
 
@@ -72,7 +74,7 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testGraphSources() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -84,7 +86,7 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testGraphTargets() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -94,9 +96,30 @@ public class ConcreteVerticesGraphTest {
         assertEquals("Target weight should be correct.", 5, (int) targets.get("B"));
     }
 
+    @Test
+    public void testGraphSourcesAfterRemovingSource() {
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
+        graph.set("A", "C", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+
+        assertTrue("Vertex should be removed successfully.", graph.remove("A"));
+        assertEquals("Only B should remain a source of C.", 1, graph.sources("C").size());
+        assertEquals("Remaining source weight should be unchanged.", 2, (int) graph.sources("C").get("B"));
+        assertTrue("Edges into the removed vertex should be gone.", graph.targets("C").isEmpty());
+    }
+
+    @Test
+    public void testGraphSetAddsMissingVertices() {
+        ConcreteVerticesGraph<Integer> graph = new ConcreteVerticesGraph<>();
+        assertEquals("Previous weight should be 0 for a new edge.", 0, graph.set(1, 2, 7));
+        assertTrue("Source should be added.", graph.vertices().contains(1));
+        assertEquals("Edge should be visible from the target.", 7, (int) graph.sources(2).get(1));
+    }
+
     @Test
     public void testGraphToString() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
         graph.set("A", "B", 5);
@@ -109,11 +132,11 @@ public class ConcreteVerticesGraphTest {
 
     @Test
     public void testEdgeCreation() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.add("A");
         graph.add("B");
 
-        ConcreteVerticesGraph.Edge edge = graph.new Edge("A", "B", 10);
+        ConcreteVerticesGraph<String>.Edge edge = graph.new Edge("A", "B", 10);
         assertEquals("Edge source should be A", "A", edge.getSource());
         assertEquals("Edge target should be B", "B", edge.getTarget());
         assertEquals("Edge weight should be 10", 10, edge.getWeight());
@@ -121,19 +144,43 @@ public class ConcreteVerticesGraphTest {
 
     @Test(expected = IllegalArgumentException.class)
     public void testEdgeInvalidWeight() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.new Edge("A", "B", -1); // Invalid weight
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testEdgeNullSource() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.new Edge(null, "B", 5); // Null source
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testEdgeNullTarget() {
-        ConcreteVerticesGraph graph = new ConcreteVerticesGraph();
+        ConcreteVerticesGraph<String> graph = new ConcreteVerticesGraph<>();
         graph.new Edge("A", null, 5); // Null target
     }
+
+    @Test
+    public void testCompactDropsLabelsOfRemovedVertices() {
+        ConcreteVerticesGraph<Integer> owned = new ConcreteVerticesGraph<>();
+        SymbolTable<Integer> symbols = new SymbolTable<>();
+        ConcreteVerticesGraph<Integer> shared = new ConcreteVerticesGraph<>(symbols);
+        List<Integer> removed = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            owned.set(i, i + 1, 1);
+            shared.set(i, i + 1, 1);
+            if (i >= 10) removed.add(i);
+        }
+        owned.removeAll(removed);
+        shared.removeAll(removed);
+        owned.compact();
+        shared.compact();
+        assertEquals("An owned table should keep only the vertices left", 11, owned.symbolCount());
+        assertEquals("A shared table should not be rebuilt", 101, shared.symbolCount());
+
+        assertEquals(1, owned.weight(8, 9));
+        owned.set(500, 0, 2);
+        assertEquals(1, owned.sources(0).size());
+        assertEquals(12, owned.symbolCount());
+    }
 }
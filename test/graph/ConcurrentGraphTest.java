@@ -0,0 +1,220 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for ConcurrentGraph, on top of the shared Graph instance tests.
+ */
+public class ConcurrentGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   increment(): many threads on the same edges, result equals the sum
+    //   readers during writes: every edge in targets(s) is in sources(t),
+    //     weights are positive and never go down while only increments run
+    //   readers during remove() and removeAll(): an edge never stays in
+    //     targets(s) once it has left sources(t) or t has left vertices()
+    //   freeze() and FrozenGraph.of() during increments that add vertices: no
+    //     failure, and total weight never goes down from one snapshot to the next
+
+    private static final int WORDS = 32;
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return new ConcurrentGraph<>();
+    }
+
+    private static void runAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+    }
+
+    @Test
+    public void testConcurrentIncrementsAreAtomic() throws InterruptedException {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        int writers = 4;
+        int rounds = 20000;
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < rounds; i++) {
+                    graph.increment(i % WORDS, (i * 7) % WORDS, 1);
+                }
+            }));
+        }
+        runAll(threads);
+
+        Map<Integer, Map<Integer, Integer>> expected = new HashMap<>();
+        for (int i = 0; i < rounds; i++) {
+            expected.computeIfAbsent(i % WORDS, k -> new HashMap<>()).merge((i * 7) % WORDS, writers, Integer::sum);
+        }
+        for (Map.Entry<Integer, Map<Integer, Integer>> row : expected.entrySet()) {
+            assertEquals(row.getValue(), graph.targets(row.getKey()));
+            for (Map.Entry<Integer, Integer> edge : row.getValue().entrySet()) {
+                assertEquals(edge.getValue(), graph.sources(edge.getKey()).get(row.getKey()));
+            }
+        }
+    }
+
+    @Test
+    public void testReadersNeverSeeTornState() throws InterruptedException {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch writersDone = new CountDownLatch(2);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int seed = w;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50000; i++) {
+                    graph.increment((i + seed) % WORDS, (i * 31 + seed) % WORDS, 1);
+                }
+                writersDone.countDown();
+            }));
+        }
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                Map<Long, Integer> lastSeen = new HashMap<>();
+                while (!done.get() && failure.get() == null) {
+                    for (int s = 0; s < WORDS; s++) {
+                        for (Map.Entry<Integer, Integer> edge : graph.targets(s).entrySet()) {
+                            int weight = edge.getValue();
+                            long key = (long) s * WORDS + edge.getKey();
+                            if (weight <= 0) {
+                                failure.set("non-positive weight " + weight);
+                            } else if (!graph.sources(edge.getKey()).containsKey(s)) {
+                                failure.set("edge " + s + " -> " + edge.getKey() + " missing from sources");
+                            } else if (lastSeen.getOrDefault(key, 0) > weight) {
+                                failure.set("weight of " + s + " -> " + edge.getKey() + " went down");
+                            }
+                            lastSeen.put(key, weight);
+                        }
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            try {
+                writersDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.set(true);
+        }));
+        runAll(threads);
+        assertNull(failure.get(), failure.get());
+    }
+
+    @Test
+    public void testReadersDuringRemovals() throws InterruptedException {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        int vertices = 200;
+        for (int s = 0; s < vertices; s++) {
+            for (int k = 1; k <= 8; k++) {
+                graph.set(s, (s * 13 + k * 17) % vertices, k);
+            }
+        }
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch writersDone = new CountDownLatch(2);
+        List<Thread> threads = new ArrayList<>();
+        // edges are only ever removed, so a removal seen once stays seen
+        threads.add(new Thread(() -> {
+            for (int v = 0; v < vertices / 2; v++) {
+                graph.remove(v);
+            }
+            writersDone.countDown();
+        }));
+        threads.add(new Thread(() -> {
+            for (int v = vertices / 2; v < vertices; v += 10) {
+                List<Integer> batch = new ArrayList<>();
+                for (int i = v; i < v + 10; i++) batch.add(i);
+                graph.removeAll(batch);
+            }
+            writersDone.countDown();
+        }));
+        for (int r = 0; r < 2; r++) {
+            threads.add(new Thread(() -> {
+                while (!done.get() && failure.get() == null) {
+                    for (int s = 0; s < vertices; s++) {
+                        for (Map.Entry<Integer, Integer> edge : graph.targets(s).entrySet()) {
+                            int t = edge.getKey();
+                            if (edge.getValue() <= 0) {
+                                failure.set("non-positive weight " + edge.getValue());
+                            } else if ((!graph.sources(t).containsKey(s) || !graph.vertices().contains(t))
+                                    && graph.targets(s).containsKey(t)) {
+                                failure.set("edge " + s + " -> " + t + " outlived its target's side");
+                            }
+                        }
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            try {
+                writersDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.set(true);
+        }));
+        runAll(threads);
+        assertNull(failure.get(), failure.get());
+        assertTrue("Every vertex should be removed", graph.vertices().isEmpty());
+    }
+
+    @Test
+    public void testFreezeDuringIncrements() throws InterruptedException {
+        ConcurrentGraph<Integer> graph = new ConcurrentGraph<>();
+        AtomicBoolean done = new AtomicBoolean(false);
+        AtomicReference<String> failure = new AtomicReference<>();
+        CountDownLatch writersDone = new CountDownLatch(2);
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int writer = w;
+            threads.add(new Thread(() -> {
+                // every increment reaches a new vertex, so vertices() keeps growing
+                for (int i = 0; i < 20000; i++) {
+                    graph.increment(i % 50, 100 + 2 * i + writer, 1);
+                }
+                writersDone.countDown();
+            }));
+        }
+        threads.add(new Thread(() -> {
+            long lastTotal = 0;
+            for (int round = 0; !done.get() && failure.get() == null; round++) {
+                try {
+                    FrozenGraph<Integer> frozen = round % 2 == 0 ? graph.freeze() : FrozenGraph.of(graph);
+                    long total = 0;
+                    for (int s : frozen.vertices()) {
+                        for (int weight : frozen.targets(s).values()) total += weight;
+                    }
+                    if (total < lastTotal) failure.set("total weight went down from " + lastTotal + " to " + total);
+                    lastTotal = total;
+                } catch (RuntimeException e) {
+                    failure.set("snapshot failed: " + e);
+                }
+            }
+        }));
+        threads.add(new Thread(() -> {
+            try {
+                writersDone.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.set(true);
+        }));
+        runAll(threads);
+        assertNull(failure.get(), failure.get());
+        assertEquals(40000 + 50, graph.freeze().vertices().size());
+    }
+}
@@ -0,0 +1,136 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class FrozenGraphTest {
+
+    // Testing strategy
+    //   freeze(): empty graph, graph with self loop and shared targets
+    //   reads: targets/sources, visitors, weight and degree match the source graph, views are shared
+    //   isolation: later edits to the source graph are not seen
+    //   a source whose targets() names a vertex its vertices() lacks: that edge is skipped
+    //   topTargets/topSources: heaviest first, vertex without edges
+    //   mutators throw; thaw() gives an editable copy whose freeze() is a successor
+
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("c", "b", 2);
+        graph.set("b", "b", 4);
+        graph.add("lonely");
+        return graph;
+    }
+
+    @Test
+    public void testSnapshotMatchesSource() {
+        Graph<String> graph = sample();
+        FrozenGraph<String> frozen = graph.freeze();
+        assertEquals(graph.vertices(), frozen.vertices());
+        for (String vertex : graph.vertices()) {
+            assertEquals(graph.targets(vertex), frozen.targets(vertex));
+            assertEquals(graph.sources(vertex), frozen.sources(vertex));
+            Map<String, Integer> visited = new HashMap<>();
+            frozen.forEachTarget(vertex, visited::put);
+            assertEquals(graph.targets(vertex), visited);
+            assertEquals(graph.sources(vertex).size(), frozen.inDegree(vertex));
+            for (String target : visited.keySet()) {
+                assertEquals(graph.weight(vertex, target), frozen.weight(vertex, target));
+            }
+        }
+        assertTrue(frozen.targets("missing").isEmpty());
+        assertNull(frozen.targets("a").get("missing"));
+    }
+
+    @Test
+    public void testTargetMissingFromVerticesIsSkipped() {
+        // as a graph written to during the snapshot may look
+        Graph<String> graph = new ConcreteEdgesGraph<String>() {
+            @Override
+            public Set<String> vertices() {
+                Set<String> vertices = new HashSet<>(super.vertices());
+                vertices.remove("late");
+                return vertices;
+            }
+        };
+        graph.set("a", "b", 2);
+        graph.set("a", "late", 5);
+        FrozenGraph<String> frozen = FrozenGraph.of(graph);
+        assertEquals(new HashSet<>(Arrays.asList("a", "b")), frozen.vertices());
+        assertEquals(Collections.singletonMap("b", 2), frozen.targets("a"));
+        assertEquals(0, frozen.weight("a", "late"));
+        assertEquals(1, frozen.inDegree("b"));
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        FrozenGraph<String> frozen = Graph.<String>empty().freeze();
+        assertTrue(frozen.vertices().isEmpty());
+        assertTrue(frozen.sources("a").isEmpty());
+    }
+
+    @Test
+    public void testViewsAreShared() {
+        FrozenGraph<String> frozen = sample().freeze();
+        assertSame(frozen.targets("a"), frozen.targets("a"));
+        assertSame(frozen.sources("b"), frozen.sources("b"));
+        assertSame(frozen, frozen.freeze());
+    }
+
+    @Test
+    public void testSnapshotIgnoresLaterEdits() {
+        Graph<String> graph = sample();
+        FrozenGraph<String> frozen = graph.freeze();
+        graph.set("a", "b", 0);
+        graph.remove("c");
+        assertEquals(3, (int) frozen.targets("a").get("b"));
+        assertEquals(2, (int) frozen.sources("b").get("c"));
+    }
+
+    @Test
+    public void testTopTargetsFromSnapshot() {
+        FrozenGraph<String> frozen = sample().freeze();
+        assertEquals(Arrays.asList("b", "c"), new ArrayList<>(frozen.topTargets("a", 2).keySet()));
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(frozen.topSources("b", 2).keySet()));
+        assertTrue(frozen.topTargets("lonely", 3).isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetThrows() {
+        sample().freeze().set("a", "b", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveAllThrows() {
+        sample().freeze().removeAll(Arrays.asList("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsAreReadOnly() {
+        sample().freeze().targets("a").put("z", 1);
+    }
+
+    @Test
+    public void testThawMakesEditableSuccessor() {
+        FrozenGraph<String> frozen = sample().freeze();
+        Graph<String> copy = frozen.thaw();
+        assertEquals(3, copy.set("a", "b", 9));
+        FrozenGraph<String> successor = copy.freeze();
+
+        assertEquals(3, (int) frozen.targets("a").get("b"));
+        assertEquals(9, (int) successor.targets("a").get("b"));
+        Map<String, Integer> sources = successor.sources("b");
+        assertEquals(3, sources.size());
+        assertTrue(successor.vertices().contains("lonely"));
+    }
+}
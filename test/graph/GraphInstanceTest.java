@@ -2,6 +2,12 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
 import org.junit.Before;
 import org.junit.Test;
 import graph.Graph;
@@ -71,7 +77,7 @@ public abstract class GraphInstanceTest {
         assertEquals("Initially, there should be no edge, so the weight should be 0.", 0, graph.set("A", "B", 5));
         
         // Set the edge weight and verify it has been updated correctly.
-        assertEquals("Updating edge weight from 'A' to 'B' should return the old weight of 0.", 0, graph.set("A", "B", 10));
+        assertEquals("Updating edge weight from 'A' to 'B' should return the old weight of 5.", 5, graph.set("A", "B", 10));
         
         // Verify the edge exists with the correct weight.
         assertEquals("Source 'A' should have an edge with weight 10 to 'B'.", 10, graph.sources("B").get("A").intValue());
@@ -99,6 +105,30 @@ public abstract class GraphInstanceTest {
         assertEquals("Removing 'A' should remove all edges where 'A' was a source.", 0, graph.sources("B").size());
     }
 
+    /**
+     * Test removing several vertices at once, including edges between two of
+     * them, a missing vertex, and compacting afterwards.
+     */
+    @Test
+    public void testRemoveAllAndCompact() {
+        graph.set("A", "B", 1);
+        graph.set("B", "A", 2);
+        graph.set("A", "C", 3);
+        graph.set("D", "B", 4);
+        graph.set("C", "D", 5);
+        assertTrue("Removing vertices should return true.", graph.removeAll(Arrays.asList("A", "B", "Z")));
+        assertEquals("Only C and D should be left.", new HashSet<>(Arrays.asList("C", "D")), graph.vertices());
+        assertTrue("C lost its only source.", graph.sources("C").isEmpty());
+        assertTrue("D lost its only target.", graph.targets("D").isEmpty());
+        assertFalse("Removing missing vertices should return false.", graph.removeAll(Arrays.asList("A", "Z")));
+
+        graph.compact();
+        assertEquals("Compacting should keep the edges left.", 5, graph.weight("C", "D"));
+        graph.set("C", "E", 6);
+        assertEquals("The graph should stay usable after compacting.", 2, graph.outDegree("C"));
+        assertEquals(new HashSet<>(Arrays.asList("C", "D", "E")), graph.vertices());
+    }
+
     /**
      * Test sources and targets for directed edges.
      */
@@ -119,4 +149,136 @@ public abstract class GraphInstanceTest {
         assertEquals("Source 'A' should have an edge with weight 5 to 'B'.", 5, graph.sources("B").get("A").intValue());
         assertEquals("Source 'B' should have an edge with weight 10 to 'C'.", 10, graph.sources("C").get("B").intValue());
     }
+
+    /**
+     * Test incrementing edge weights, including creating and removing edges.
+     */
+    @Test
+    public void testIncrement() {
+        assertEquals("Incrementing a missing edge should return 0.", 0, graph.increment("A", "B", 2));
+        assertEquals("Increment should add to the existing weight.", 2, graph.increment("A", "B", 3));
+        assertEquals("Edge weight should be the sum of the increments.", 5, graph.targets("A").get("B").intValue());
+        assertEquals("Decrement should return the previous weight.", 5, graph.increment("A", "B", -5));
+        assertFalse("Decrementing to 0 should remove the edge.", graph.sources("B").containsKey("A"));
+    }
+
+    /**
+     * Test that an increment cannot make a weight negative.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncrementBelowZero() {
+        graph.set("A", "B", 1);
+        graph.increment("A", "B", -2);
+    }
+
+    /**
+     * Test adding many vertices at once.
+     */
+    @Test
+    public void testAddAll() {
+        graph.add("A");
+        assertTrue("Adding a new vertex in a batch should return true.", graph.addAll(Arrays.asList("A", "B", "C")));
+        assertFalse("Adding only existing vertices should return false.", graph.addAll(Arrays.asList("A", "B")));
+        assertEquals("Graph should contain each vertex once.", 3, graph.vertices().size());
+    }
+
+    /**
+     * Test setting and merging many edge weights at once.
+     */
+    @Test
+    public void testSetAllAndMergeWeights() {
+        Map<Pair<String>, Integer> weights = new HashMap<>();
+        weights.put(new Pair<>("A", "B"), 4);
+        weights.put(new Pair<>("B", "C"), 2);
+        graph.setAll(weights);
+        assertEquals("setAll should create edge 'A' -> 'B'.", 4, graph.targets("A").get("B").intValue());
+        assertEquals("setAll should create edge 'B' -> 'C'.", 2, graph.sources("C").get("B").intValue());
+
+        Map<Pair<String>, Integer> deltas = new HashMap<>();
+        deltas.put(new Pair<>("A", "B"), 1);
+        deltas.put(new Pair<>("B", "C"), -2);
+        deltas.put(new Pair<>("C", "A"), 7);
+        graph.mergeWeights(deltas);
+        assertEquals("mergeWeights should add to 'A' -> 'B'.", 5, graph.targets("A").get("B").intValue());
+        assertTrue("mergeWeights to 0 should remove 'B' -> 'C'.", graph.targets("B").isEmpty());
+        assertEquals("mergeWeights should create 'C' -> 'A'.", 7, graph.sources("A").get("C").intValue());
+    }
+
+    /**
+     * Test top-k neighbor queries, including after weights change.
+     */
+    @Test
+    public void testTopTargetsAndSources() {
+        graph.set("A", "B", 1);
+        graph.set("A", "C", 5);
+        graph.set("A", "D", 3);
+        graph.set("E", "D", 4);
+        assertEquals("Top targets should be heaviest first.", Arrays.asList("C", "D"),
+                new ArrayList<>(graph.topTargets("A", 2).keySet()));
+        assertEquals("k above the degree should return every target.", 3, graph.topTargets("A", 10).size());
+        assertEquals("Top sources should be heaviest first.", Arrays.asList("E", "A"),
+                new ArrayList<>(graph.topSources("D", 2).keySet()));
+        assertTrue("k = 0 should return nothing.", graph.topTargets("A", 0).isEmpty());
+        assertTrue("A missing vertex has no top targets.", graph.topTargets("Z", 3).isEmpty());
+
+        graph.increment("A", "B", 9);
+        graph.set("A", "C", 0);
+        Map<String, Integer> top = graph.topTargets("A", 5);
+        assertEquals("Top targets should follow weight changes.", Arrays.asList("B", "D"), new ArrayList<>(top.keySet()));
+        assertEquals("Top targets should carry weights.", 10, top.get("B").intValue());
+    }
+
+    /**
+     * Test that top-k queries reject a negative k.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testTopTargetsNegativeK() {
+        graph.set("A", "B", 1);
+        graph.topTargets("A", -1);
+    }
+
+    /**
+     * Test that the visitors, weight() and the degrees agree with sources()
+     * and targets(), before and after edits, and for missing vertices.
+     */
+    @Test
+    public void testVisitorsWeightAndDegree() {
+        graph.set("A", "B", 2);
+        graph.set("A", "C", 7);
+        graph.set("D", "C", 1);
+        graph.add("E");
+        assertVisitsMatch();
+        assertEquals("weight() should return the edge's weight.", 7, graph.weight("A", "C"));
+        assertEquals("weight() should be 0 without an edge.", 0, graph.weight("C", "A"));
+        assertEquals("weight() should be 0 for a missing vertex.", 0, graph.weight("Z", "A"));
+        assertEquals("outDegree() should count targets.", 2, graph.outDegree("A"));
+        assertEquals("inDegree() should count sources.", 2, graph.inDegree("C"));
+        assertEquals("A missing vertex has no edges.", 0, graph.outDegree("Z"));
+
+        graph.set("A", "C", 0);
+        graph.increment("D", "C", 4);
+        graph.remove("B");
+        assertVisitsMatch();
+        assertEquals("weight() should follow increments.", 5, graph.weight("D", "C"));
+        assertEquals("outDegree() should follow removals.", 0, graph.outDegree("A"));
+        graph.forEachTarget("Z", (target, weight) -> fail("A missing vertex has no targets."));
+    }
+
+    private void assertVisitsMatch() {
+        for (String vertex : graph.vertices()) {
+            Map<String, Integer> targets = new HashMap<>();
+            graph.forEachTarget(vertex, (target, weight) ->
+                    assertNull("Each target should be visited once.", targets.put(target, weight)));
+            assertEquals("forEachTarget() should visit targets().", graph.targets(vertex), targets);
+            Map<String, Integer> sources = new HashMap<>();
+            graph.forEachSource(vertex, (source, weight) ->
+                    assertNull("Each source should be visited once.", sources.put(source, weight)));
+            assertEquals("forEachSource() should visit sources().", graph.sources(vertex), sources);
+            assertEquals(graph.targets(vertex).size(), graph.outDegree(vertex));
+            assertEquals(graph.sources(vertex).size(), graph.inDegree(vertex));
+            for (Map.Entry<String, Integer> edge : targets.entrySet()) {
+                assertEquals(edge.getValue().intValue(), graph.weight(vertex, edge.getKey()));
+            }
+        }
+    }
 }
@@ -0,0 +1,14 @@
+package graph;
+
+/**
+ * Runs the shared Graph instance tests against ConcreteEdgesGraph with
+ * incremental validation, so its touched-only checks see every kind of
+ * mutation.
+ */
+public class IncrementalEdgesGraphInstanceTest extends GraphInstanceTest {
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return ValidationTest.withValidation("incremental", ConcreteEdgesGraph::new);
+    }
+}
@@ -0,0 +1,67 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import graph.metrics.Metrics;
+
+/**
+ * Tests for InstrumentedGraph, on top of the shared Graph instance tests.
+ */
+public class InstrumentedGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   registry: enabled, disabled, enabled after some calls
+    //   operations: mutators, map queries (fan-out counted), failing calls
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return new InstrumentedGraph<>(new ConcreteEdgesGraph<>());
+    }
+
+    @Test
+    public void testCountsCallsAndFanOut() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 2);
+        graph.increment("a", "b", 1);
+        graph.targets("a");
+        graph.targets("b");
+        graph.topTargets("a", 1);
+        Map<String, Long> values = graph.metrics().getValues();
+        assertEquals(2L, (long) values.get("graph.set.count"));
+        assertEquals(1L, (long) values.get("graph.increment.count"));
+        assertEquals(2L, (long) values.get("graph.targets.count"));
+        assertEquals(2L, (long) values.get("graph.targets.entries"));
+        assertEquals(1L, (long) values.get("graph.topTargets.entries"));
+        assertEquals(0L, (long) values.get("graph.remove.count"));
+    }
+
+    @Test
+    public void testDisabledRecordsNothing() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty(), new Metrics(false));
+        graph.set("a", "b", 1);
+        graph.targets("a");
+        assertEquals(0L, (long) graph.metrics().getValues().get("graph.set.count"));
+        assertEquals(0L, (long) graph.metrics().getValues().get("graph.targets.entries"));
+
+        graph.metrics().setEnabled(true);
+        graph.add("c");
+        assertEquals(1L, (long) graph.metrics().getValues().get("graph.add.count"));
+    }
+
+    @Test
+    public void testFailedCallsAreNotRecorded() {
+        InstrumentedGraph<String> graph = new InstrumentedGraph<>(Graph.empty());
+        try {
+            graph.topTargets("a", -1);
+            fail("expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(0L, (long) graph.metrics().getValues().get("graph.topTargets.count"));
+    }
+}
@@ -0,0 +1,113 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MappedGraphTest {
+
+    // Testing strategy
+    //   write()/open(): empty graph, graph with self loop, shared targets,
+    //     an isolated vertex and non-ASCII labels
+    //   reads: vertices/targets/sources, visitors, weight and degree match the
+    //     source graph, missing labels
+    //   open(): file that is not a snapshot, truncated snapshot
+    //   mutators throw
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("graph", ".snapshot");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("c", "b", 2);
+        graph.set("b", "b", 4);
+        graph.set("été", "a", 7);
+        graph.set("Z", "été", 5);
+        graph.add("lonely");
+        return graph;
+    }
+
+    @Test
+    public void testSnapshotMatchesSource() throws IOException {
+        Graph<String> graph = sample();
+        MappedGraph.write(graph, file);
+        MappedGraph mapped = MappedGraph.open(file);
+        assertEquals(graph.vertices(), mapped.vertices());
+        for (String vertex : graph.vertices()) {
+            assertTrue(mapped.vertices().contains(vertex));
+            assertEquals(graph.targets(vertex), mapped.targets(vertex));
+            assertEquals(graph.sources(vertex), mapped.sources(vertex));
+            Map<String, Integer> visited = new HashMap<>();
+            mapped.forEachTarget(vertex, visited::put);
+            assertEquals(graph.targets(vertex), visited);
+            assertEquals(graph.sources(vertex).size(), mapped.inDegree(vertex));
+            for (String target : visited.keySet()) {
+                assertEquals(graph.weight(vertex, target), mapped.weight(vertex, target));
+            }
+        }
+        assertFalse(mapped.vertices().contains("missing"));
+        assertTrue(mapped.targets("missing").isEmpty());
+        assertNull(mapped.targets("a").get("missing"));
+        assertNull(mapped.targets("a").get("lonely"));
+    }
+
+    @Test
+    public void testEmptyGraph() throws IOException {
+        MappedGraph.write(Graph.empty(), file);
+        MappedGraph mapped = MappedGraph.open(file);
+        assertTrue(mapped.vertices().isEmpty());
+        assertTrue(mapped.sources("a").isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenRejectsOtherFiles() throws IOException {
+        Files.write(file, "not a snapshot at all".getBytes("UTF-8"));
+        MappedGraph.open(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testOpenRejectsTruncatedSnapshot() throws IOException {
+        MappedGraph.write(sample(), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+        MappedGraph.open(file);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSetThrows() throws IOException {
+        MappedGraph.write(sample(), file);
+        MappedGraph.open(file).set("a", "b", 1);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testRemoveAllThrows() throws IOException {
+        MappedGraph.write(sample(), file);
+        MappedGraph.open(file).removeAll(Arrays.asList("a"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewsAreReadOnly() throws IOException {
+        MappedGraph.write(sample(), file);
+        MappedGraph.open(file).targets("a").put("z", 1);
+    }
+}
@@ -0,0 +1,139 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for OffHeapGraph, on top of the shared Graph instance tests.
+ */
+public class OffHeapGraphTest extends GraphInstanceTest {
+
+    // Testing strategy
+    //   segment size: smallest allowed (rows and the edge index span many
+    //     segments), default; invalid sizes
+    //   mutations: random sets, increments and removals, against ConcreteEdgesGraph;
+    //     rows that grow past several blocks and shrink back
+    //   memory: grows by whole segments; freed blocks are reused; compact()
+    //     after removeAll() shrinks the edge index
+    //   close(): frees memory once; every later call throws
+
+    @Override
+    protected Graph<String> emptyInstance() {
+        return new OffHeapGraph<>(new SymbolTable<>(), 1024);
+    }
+
+    private static void assertSameGraph(Graph<Integer> expected, Graph<Integer> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (Integer vertex : expected.vertices()) {
+            assertEquals(expected.targets(vertex), actual.targets(vertex));
+            assertEquals(expected.sources(vertex), actual.sources(vertex));
+        }
+    }
+
+    @Test
+    public void testRandomOperationsMatchConcreteGraph() {
+        Random random = new Random(5);
+        Graph<Integer> expected = new ConcreteEdgesGraph<>();
+        try (OffHeapGraph<Integer> graph = new OffHeapGraph<>(new SymbolTable<>(), 1024)) {
+            for (int i = 0; i < 3000; i++) {
+                int source = random.nextInt(40);
+                int target = random.nextInt(random.nextBoolean() ? 3 : 40);
+                int operation = random.nextInt(10);
+                if (operation < 6) {
+                    assertEquals(expected.increment(source, target, 1), graph.increment(source, target, 1));
+                } else if (operation < 9) {
+                    int weight = random.nextInt(3);
+                    assertEquals(expected.set(source, target, weight), graph.set(source, target, weight));
+                } else {
+                    assertEquals(expected.remove(source), graph.remove(source));
+                }
+            }
+            assertSameGraph(expected, graph);
+        }
+    }
+
+    @Test
+    public void testLongRowsGrowAndShrink() {
+        try (OffHeapGraph<Integer> graph = new OffHeapGraph<>(new SymbolTable<>(), 1024)) {
+            for (int i = 1; i <= 1000; i++) {
+                graph.set(0, i, i);
+            }
+            long grown = graph.offHeapBytes();
+            assertEquals(1000, graph.targets(0).size());
+            assertEquals(500, (int) graph.targets(0).get(500));
+            assertEquals(0, grown % 1024);
+
+            for (int i = 1; i <= 1000; i += 2) {
+                graph.set(0, i, 0);
+            }
+            assertEquals(500, graph.targets(0).size());
+            assertEquals(1, graph.sources(2).size());
+            for (int i = 1; i <= 1000; i += 2) {
+                graph.set(0, i, i);
+            }
+            assertEquals("Freed blocks should be reused", grown, graph.offHeapBytes());
+            assertTrue(graph.remove(0));
+            assertTrue(graph.sources(500).isEmpty());
+        }
+    }
+
+    @Test
+    public void testCompactShrinksEdgeIndex() {
+        try (OffHeapGraph<Integer> graph = new OffHeapGraph<>(new SymbolTable<>(), 1024)) {
+            List<Integer> removed = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                graph.set(i, i + 1, 1);
+                if (i >= 10) removed.add(i);
+            }
+            long grown = graph.offHeapBytes();
+            assertTrue(graph.removeAll(removed));
+            assertEquals(11, graph.vertices().size());
+            assertTrue(graph.targets(9).isEmpty());
+
+            graph.compact();
+            assertTrue("Compacting should free the emptied edge index", graph.offHeapBytes() < grown);
+            assertEquals(1, graph.weight(8, 9));
+            graph.set(2000, 0, 2);
+            assertEquals(2, graph.weight(2000, 0));
+            assertFalse(graph.removeAll(removed));
+        }
+    }
+
+    @Test
+    public void testSharedSymbols() {
+        SymbolTable<String> symbols = new SymbolTable<>();
+        symbols.intern("unused");
+        try (OffHeapGraph<String> graph = new OffHeapGraph<>(symbols)) {
+            graph.set(new String("a"), "b", 1);
+            assertEquals(2, graph.vertices().size());
+            assertFalse(graph.vertices().contains("unused"));
+            assertSame(symbols.intern("a"), graph.sources("b").keySet().iterator().next());
+        }
+    }
+
+    @Test
+    public void testCloseFreesAndDisables() {
+        OffHeapGraph<String> graph = new OffHeapGraph<>();
+        graph.set("a", "b", 1);
+        assertTrue(graph.offHeapBytes() > 0);
+        graph.close();
+        graph.close();
+        assertEquals(0, graph.offHeapBytes());
+        try {
+            graph.targets("a");
+            fail("expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSegmentSizeMustBePowerOfTwo() {
+        new OffHeapGraph<String>(new SymbolTable<>(), 3000);
+    }
+}
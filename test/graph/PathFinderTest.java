@@ -0,0 +1,138 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PathFinderTest {
+
+    // Testing strategy
+    //   shortestPath/bidirectionalShortestPath/distance: same vertex, direct edge
+    //     beaten by a lighter detour, unreachable, missing vertex, random graphs
+    //     against Floyd-Warshall, many queries on one finder
+    //   reachable(): hops 0, 1, many; cycles; missing vertex; negative hops
+    //   bridge(): one word (matches the two-hop search), two words, none within
+    //     maxWords, a shorter bridge beats a heavier longer one, endpoints skipped
+
+    private static Graph<String> chain() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("a", "c", 5);
+        graph.set("c", "d", 2);
+        graph.set("d", "a", 1);
+        graph.add("lonely");
+        return graph;
+    }
+
+    @Test
+    public void testShortestPathTakesLighterDetour() {
+        PathFinder<String> finder = new PathFinder<>(chain());
+        assertEquals(Arrays.asList("a", "b", "c", "d"), finder.shortestPath("a", "d"));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), finder.bidirectionalShortestPath("a", "d"));
+        assertEquals(4, finder.distance("a", "d"));
+        assertEquals(Collections.singletonList("b"), finder.shortestPath("b", "b"));
+        assertEquals(0, finder.distance("b", "b"));
+    }
+
+    @Test
+    public void testUnreachableAndMissing() {
+        PathFinder<String> finder = new PathFinder<>(chain());
+        assertTrue(finder.shortestPath("a", "lonely").isEmpty());
+        assertTrue(finder.bidirectionalShortestPath("lonely", "a").isEmpty());
+        assertEquals(-1, finder.distance("a", "lonely"));
+        assertEquals(-1, finder.distance("a", "missing"));
+    }
+
+    @Test
+    public void testRandomGraphsMatchFloydWarshall() {
+        Random random = new Random(11);
+        for (int round = 0; round < 20; round++) {
+            int n = 2 + random.nextInt(30);
+            Graph<Integer> graph = Graph.empty();
+            long[][] expected = new long[n][n];
+            for (long[] row : expected) Arrays.fill(row, Long.MAX_VALUE / 4);
+            for (int v = 0; v < n; v++) {
+                graph.add(v);
+                expected[v][v] = 0;
+            }
+            for (int e = random.nextInt(n * 3); e > 0; e--) {
+                int u = random.nextInt(n);
+                int v = random.nextInt(n);
+                int weight = 1 + random.nextInt(9);
+                graph.set(u, v, weight);
+                if (u != v) expected[u][v] = weight;
+            }
+            for (int k = 0; k < n; k++) {
+                for (int i = 0; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        expected[i][j] = Math.min(expected[i][j], expected[i][k] + expected[k][j]);
+                    }
+                }
+            }
+            PathFinder<Integer> finder = new PathFinder<>(graph);
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    long want = expected[i][j] >= Long.MAX_VALUE / 4 ? -1 : expected[i][j];
+                    assertEquals(i + " -> " + j, want, finder.distance(i, j));
+                    assertEquals(want, length(graph, finder.shortestPath(i, j)));
+                    assertEquals(want, length(graph, finder.bidirectionalShortestPath(i, j)));
+                }
+            }
+        }
+    }
+
+    // Total weight of a path, or -1 for no path.
+    private static long length(Graph<Integer> graph, List<Integer> path) {
+        if (path.isEmpty()) return -1;
+        long total = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            total += graph.targets(path.get(i)).get(path.get(i + 1));
+        }
+        return total;
+    }
+
+    @Test
+    public void testReachableWithinHops() {
+        PathFinder<String> finder = new PathFinder<>(chain());
+        assertEquals(Collections.singleton("a"), finder.reachable("a", 0));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), finder.reachable("a", 1));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), finder.reachable("b", 3));
+        assertEquals(Collections.singleton("lonely"), finder.reachable("lonely", 5));
+        assertTrue(finder.reachable("missing", 2).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReachableNegativeHops() {
+        new PathFinder<>(chain()).reachable("a", -1);
+    }
+
+    @Test
+    public void testBridges() {
+        Graph<String> graph = Graph.empty();
+        graph.set("to", "be", 1);
+        graph.set("be", "or", 2);
+        graph.set("to", "maybe", 3);
+        graph.set("maybe", "or", 1);
+        graph.set("or", "not", 1);
+        graph.set("not", "to", 1);
+        graph.set("to", "x", 1);
+        graph.set("x", "y", 1);
+        graph.set("y", "end", 9);
+        graph.set("to", "z", 1);
+        graph.set("z", "end", 1);
+        PathFinder<String> finder = new PathFinder<>(graph);
+        assertEquals(Collections.singletonList("maybe"), finder.bridge("to", "or", 1));
+        assertEquals(Arrays.asList("or", "not"), finder.bridge("maybe", "to", 2));
+        assertTrue(finder.bridge("maybe", "to", 1).isEmpty());
+        assertEquals("A shorter bridge should win", Collections.singletonList("z"), finder.bridge("to", "end", 2));
+        assertTrue(finder.bridge("to", "to", 3).isEmpty());
+        assertTrue(finder.bridge("to", "or", 0).isEmpty());
+    }
+}
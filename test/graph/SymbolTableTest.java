@@ -0,0 +1,69 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SymbolTableTest {
+
+    // Testing strategy
+    //   intern()/id(): new label, equal but distinct instance, many labels (growth)
+    //   find(): added, missing, null
+    //   label(): valid ID, out of range
+    //   graphs: labels stored by a graph are the table's instances, shared tables
+
+    @Test
+    public void testEqualLabelsShareOneInstance() {
+        SymbolTable<String> symbols = new SymbolTable<>();
+        String first = new String("word");
+        String second = new String("word");
+        assertSame(first, symbols.intern(first));
+        assertSame(first, symbols.intern(second));
+        assertEquals(0, symbols.id(second));
+        assertEquals(1, symbols.size());
+    }
+
+    @Test
+    public void testIdsAreDenseAndStable() {
+        SymbolTable<String> symbols = new SymbolTable<>();
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, symbols.id("w" + i));
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i, symbols.find("w" + i));
+            assertEquals("w" + i, symbols.label(i));
+        }
+        assertEquals(-1, symbols.find("missing"));
+        assertEquals(-1, symbols.find(null));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testLabelOutOfRange() {
+        new SymbolTable<String>().label(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullLabel() {
+        new SymbolTable<String>().id(null);
+    }
+
+    @Test
+    public void testGraphsStoreCanonicalLabels() {
+        SymbolTable<String> symbols = new SymbolTable<>();
+        String canonical = symbols.intern(new String("b"));
+        Graph<String> edges = new ConcreteEdgesGraph<>(symbols);
+        Graph<String> vertices = new ConcreteVerticesGraph<>(symbols);
+        for (Graph<String> graph : Arrays.asList(edges, vertices)) {
+            graph.set("a", new String("b"), 1);
+            graph.increment(new String("c"), new String("b"), 2);
+            String target = graph.targets("a").keySet().iterator().next();
+            assertSame(canonical, target);
+            for (String source : graph.sources("b").keySet()) {
+                assertSame(symbols.intern(source), source);
+            }
+        }
+        assertEquals(3, symbols.size());
+    }
+}
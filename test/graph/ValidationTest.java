@@ -0,0 +1,119 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+public class ValidationTest {
+
+    // Testing strategy
+    //   parse(): each mode, case and spaces, periodic:1 is full, malformed specs
+    //   configured(): property unset, set, malformed
+    //   checksAll()/checksTouched() for each mode
+    //   graphs built under each mode: same graph as under full
+
+    // Returns what make returns while the graph.validation property is spec,
+    // or unset if spec is null.
+    static <T> T withValidation(String spec, Supplier<T> make) {
+        String old = System.getProperty(Validation.PROPERTY);
+        try {
+            if (spec == null) {
+                System.clearProperty(Validation.PROPERTY);
+            } else {
+                System.setProperty(Validation.PROPERTY, spec);
+            }
+            return make.get();
+        } finally {
+            if (old == null) {
+                System.clearProperty(Validation.PROPERTY);
+            } else {
+                System.setProperty(Validation.PROPERTY, old);
+            }
+        }
+    }
+
+    private static Validation withProperty(String spec) {
+        return withValidation(spec, Validation::configured);
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(Validation.off(), Validation.parse("off"));
+        assertEquals(Validation.incremental(), Validation.parse(" Incremental "));
+        assertEquals(Validation.full(), Validation.parse("FULL"));
+        assertEquals(Validation.full(), Validation.parse("periodic:1"));
+        assertEquals(Validation.periodic(100), Validation.parse("periodic:100"));
+        assertEquals("periodic:100", Validation.periodic(100).toString());
+        assertEquals(100, Validation.parse("periodic:100").period());
+    }
+
+    @Test
+    public void testParseRejectsMalformed() {
+        for (String spec : new String[] { "", "sometimes", "periodic:", "periodic:0", "periodic:x" }) {
+            try {
+                Validation.parse(spec);
+                fail("expected IllegalArgumentException for " + spec);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testConfiguredFromProperty() {
+        assertEquals("Default keeps checking after every mutation", Validation.full(), withProperty(null));
+        assertEquals(Validation.off(), withProperty("off"));
+        assertEquals(Validation.periodic(8), withProperty("periodic:8"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConfiguredRejectsMalformed() {
+        withProperty("never");
+    }
+
+    @Test
+    public void testSchedule() {
+        assertFalse(Validation.off().checksAll(1));
+        assertFalse(Validation.off().checksTouched());
+        assertFalse(Validation.incremental().checksAll(1));
+        assertTrue(Validation.incremental().checksTouched());
+        assertTrue(Validation.full().checksAll(1));
+        assertTrue(Validation.full().checksAll(2));
+        assertFalse(Validation.periodic(3).checksAll(2));
+        assertTrue(Validation.periodic(3).checksAll(3));
+        assertFalse(Validation.periodic(3).checksTouched());
+    }
+
+    @Test
+    public void testGraphsAgreeAcrossModes() {
+        Graph<String> expected = build(new ConcreteEdgesGraph<>());
+        for (String spec : new String[] { "off", "incremental", "periodic:7" }) {
+            List<Graph<String>> graphs = new ArrayList<>();
+            graphs.add(withValidation(spec, ConcreteEdgesGraph::new));
+            graphs.add(withValidation(spec, ConcreteVerticesGraph::new));
+            for (Graph<String> graph : graphs) {
+                build(graph);
+                assertEquals(spec, expected.vertices(), graph.vertices());
+                for (String vertex : expected.vertices()) {
+                    assertEquals(spec, expected.targets(vertex), graph.targets(vertex));
+                    assertEquals(spec, expected.sources(vertex), graph.sources(vertex));
+                }
+            }
+        }
+    }
+
+    private static Graph<String> build(Graph<String> graph) {
+        for (int i = 0; i < 200; i++) {
+            graph.increment("v" + i % 17, "v" + i % 13, 1 + i % 3);
+        }
+        graph.set("v1", "v2", 0);
+        graph.remove("v5");
+        graph.addAll(Arrays.asList("x", "y"));
+        return graph;
+    }
+}
@@ -0,0 +1,63 @@
+package graph.analytics;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+public class ComponentsTest {
+
+    // Testing strategy
+    //   graph: empty, isolated vertices, chain joined only by edge direction,
+    //          self loop, several components of different sizes
+    //   order: largest first
+
+    @Test
+    public void testEmptyGraph() {
+        assertTrue(Components.weaklyConnected(Graph.<String>empty()).isEmpty());
+        assertEquals(0, Components.count(Graph.<String>empty()));
+    }
+
+    @Test
+    public void testIsolatedVertices() {
+        Graph<String> graph = Graph.empty();
+        graph.add("a");
+        graph.add("b");
+        graph.set("c", "c", 1);
+        assertEquals(3, Components.count(graph));
+        assertEquals(1, Components.weaklyConnected(graph).get(0).size());
+    }
+
+    @Test
+    public void testDirectionIsIgnored() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        graph.set("c", "b", 1);
+        graph.set("d", "c", 1);
+        assertEquals(1, Components.count(graph));
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), Components.weaklyConnected(graph).get(0));
+    }
+
+    @Test
+    public void testLargestFirst() {
+        Graph<String> graph = Graph.empty();
+        graph.set("x", "y", 1);
+        graph.add("lonely");
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 1);
+        graph.set("p", "q", 1);
+        List<Set<String>> components = Components.weaklyConnected(graph);
+        assertEquals(4, components.size());
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), components.get(0));
+        assertEquals(new HashSet<>(Arrays.asList(new HashSet<>(Arrays.asList("x", "y")),
+                new HashSet<>(Arrays.asList("p", "q")))), new HashSet<>(components.subList(1, 3)));
+        assertEquals(new HashSet<>(Arrays.asList("lonely")), components.get(3));
+        assertEquals(4, Components.count(graph));
+    }
+}
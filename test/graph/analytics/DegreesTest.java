@@ -0,0 +1,69 @@
+package graph.analytics;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+public class DegreesTest {
+
+    // Testing strategy
+    //   graph: empty, self loop, isolated vertex, vertex with several edges
+    //   direction: out, in
+    //   measure: degree distribution, strength distribution, strength per vertex
+
+    private static Graph<String> sample() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("c", "b", 2);
+        graph.set("b", "b", 4);
+        graph.add("lonely");
+        return graph;
+    }
+
+    private static <K> SortedMap<K, Integer> counts(K k1, int c1, K k2, int c2, K k3, int c3) {
+        SortedMap<K, Integer> counts = new TreeMap<>();
+        counts.put(k1, c1);
+        counts.put(k2, c2);
+        counts.put(k3, c3);
+        return counts;
+    }
+
+    @Test
+    public void testEmptyGraph() {
+        assertTrue(Degrees.outDegreeDistribution(Graph.<String>empty()).isEmpty());
+        assertTrue(Degrees.inStrengths(Graph.<String>empty()).isEmpty());
+    }
+
+    @Test
+    public void testDegreeDistributions() {
+        assertEquals(counts(0, 1, 1, 2, 2, 1), Degrees.outDegreeDistribution(sample()));
+        SortedMap<Integer, Integer> in = Degrees.inDegreeDistribution(sample());
+        assertEquals(counts(0, 2, 1, 1, 3, 1), in);
+    }
+
+    @Test
+    public void testStrengthDistributions() {
+        assertEquals(counts(0L, 1, 2L, 1, 4L, 2), Degrees.outStrengthDistribution(sample()));
+        SortedMap<Long, Integer> in = Degrees.inStrengthDistribution(sample());
+        assertEquals(3, in.size());
+        assertEquals(2, (int) in.get(0L));
+        assertEquals(1, (int) in.get(1L));
+        assertEquals(1, (int) in.get(9L));
+    }
+
+    @Test
+    public void testStrengthsByVertex() {
+        Map<String, Long> out = Degrees.outStrengths(sample());
+        assertEquals(4, (long) out.get("a"));
+        assertEquals(4, (long) out.get("b"));
+        assertEquals(0, (long) out.get("lonely"));
+        assertEquals(9, (long) Degrees.inStrengths(sample()).get("b"));
+    }
+}
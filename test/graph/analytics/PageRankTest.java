@@ -0,0 +1,137 @@
+package graph.analytics;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+public class PageRankTest {
+
+    // Testing strategy
+    //   graph: empty, one vertex, cycle, vertex without outgoing edges, random
+    //   weights: equal, unequal (rank splits by weight)
+    //   parallelism: 1, several (same ranks as a plain power iteration)
+    //   arguments: damping, tolerance, iterations and parallelism out of range
+
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    public void testEmptyGraph() {
+        assertTrue(new PageRank().rank(Graph.<String>empty()).isEmpty());
+    }
+
+    @Test
+    public void testSingleVertex() {
+        Graph<String> graph = Graph.empty();
+        graph.add("a");
+        assertEquals(1.0, new PageRank().rank(graph).get("a"), EPSILON);
+    }
+
+    @Test
+    public void testCycleIsUniform() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 2);
+        graph.set("b", "c", 5);
+        graph.set("c", "a", 1);
+        Map<String, Double> ranks = new PageRank().rank(graph);
+        for (String vertex : graph.vertices()) {
+            assertEquals(1.0 / 3, ranks.get(vertex), EPSILON);
+        }
+    }
+
+    @Test
+    public void testDanglingVertexSpreadsRank() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        Map<String, Double> ranks = new PageRank().rank(graph);
+        // r_a = 0.075 + 0.425 r_b and r_a + r_b = 1
+        assertEquals(0.5 / 1.425, ranks.get("a"), EPSILON);
+        assertEquals(1 - 0.5 / 1.425, ranks.get("b"), EPSILON);
+    }
+
+    @Test
+    public void testRankSplitsByWeight() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 3);
+        graph.set("a", "c", 1);
+        graph.set("b", "a", 1);
+        graph.set("c", "a", 1);
+        Map<String, Double> ranks = new PageRank().rank(graph);
+        double base = 0.15 / 3;
+        assertEquals(3 * (ranks.get("c") - base), ranks.get("b") - base, EPSILON);
+        assertEquals(1.0, ranks.get("a") + ranks.get("b") + ranks.get("c"), EPSILON);
+    }
+
+    // About 2000 vertices and edges to rank, so even with parallelism 4 a step
+    // splits into several leaves of the minimum leaf size, 256.
+    @Test
+    public void testParallelMatchesPowerIteration() {
+        Random random = new Random(7);
+        Graph<Integer> graph = Graph.empty();
+        for (int i = 0; i < 400; i++) graph.add(i);
+        for (int i = 0; i < 1600; i++) {
+            graph.set(random.nextInt(400), random.nextInt(random.nextBoolean() ? 20 : 400), 1 + random.nextInt(9));
+        }
+        Map<Integer, Double> expected = powerIteration(graph, 0.85, 100);
+        for (int parallelism : new int[] { 1, 4 }) {
+            Map<Integer, Double> ranks = new PageRank(0.85, 0, 100, parallelism).rank(graph);
+            double sum = 0;
+            for (int vertex : graph.vertices()) {
+                assertEquals(expected.get(vertex), ranks.get(vertex), 1e-9);
+                sum += ranks.get(vertex);
+            }
+            assertEquals(1.0, sum, 1e-9);
+        }
+    }
+
+    // Straightforward weighted PageRank over the Graph interface.
+    private static <L> Map<L, Double> powerIteration(Graph<L> graph, double damping, int iterations) {
+        int n = graph.vertices().size();
+        Map<L, Double> ranks = new HashMap<>();
+        for (L vertex : graph.vertices()) ranks.put(vertex, 1.0 / n);
+        for (int i = 0; i < iterations; i++) {
+            double dangling = 0;
+            Map<L, Double> next = new HashMap<>();
+            for (L vertex : graph.vertices()) next.put(vertex, 0.0);
+            for (L source : graph.vertices()) {
+                Map<L, Integer> targets = graph.targets(source);
+                long strength = 0;
+                for (int weight : targets.values()) strength += weight;
+                if (strength == 0) dangling += ranks.get(source);
+                for (Map.Entry<L, Integer> edge : targets.entrySet()) {
+                    next.merge(edge.getKey(), ranks.get(source) * edge.getValue() / strength, Double::sum);
+                }
+            }
+            for (L vertex : graph.vertices()) {
+                next.put(vertex, (1 - damping) / n + damping * (next.get(vertex) + dangling / n));
+            }
+            ranks = next;
+        }
+        return ranks;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDampingOfOne() {
+        new PageRank(1, 1e-9, 10, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeTolerance() {
+        new PageRank(0.85, -1, 10, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoIterations() {
+        new PageRank(0.85, 1e-9, 0, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoParallelism() {
+        new PageRank(0.85, 1e-9, 10, 0);
+    }
+}
@@ -0,0 +1,62 @@
+package graph.metrics;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    // Testing strategy
+    //   recorded: nothing, zero, negative, one value, spread of values
+    //   percentile: 0, 50, 100, out of range; accurate within a factor of two
+    //   reset
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.meanNanos());
+        assertEquals(0, histogram.percentile(99));
+    }
+
+    @Test
+    public void testZeroAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(-5);
+        assertEquals(2, histogram.count());
+        assertEquals(0, histogram.maxNanos());
+        assertEquals(0, histogram.percentile(100));
+    }
+
+    @Test
+    public void testPercentilesWithinFactorOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(1_000_000, histogram.maxNanos());
+        assertEquals(500_500, histogram.meanNanos());
+        long median = histogram.percentile(50);
+        assertTrue(median >= 500_000 && median < 1_000_000);
+        assertEquals(1_000_000, histogram.percentile(100));
+        long lowest = histogram.percentile(0);
+        assertTrue(lowest >= 1000 && lowest < 2000);
+    }
+
+    @Test
+    public void testReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.totalNanos());
+        assertEquals(0, histogram.maxNanos());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new LatencyHistogram().percentile(101);
+    }
+}
@@ -0,0 +1,82 @@
+package graph.metrics;
+
+import static org.junit.Assert.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+    // Testing strategy
+    //   counter()/histogram(): same name gives the same instance
+    //   report(): counters and histogram summaries, in name order
+    //   reset(), setEnabled()
+    //   register(): values and enabled flag visible over JMX
+    //   allocatedBytes(): grows when the thread allocates, if supported
+
+    @Test
+    public void testSameNameSameInstance() {
+        Metrics metrics = new Metrics(true);
+        assertSame(metrics.counter("a"), metrics.counter("a"));
+        assertSame(metrics.histogram("h"), metrics.histogram("h"));
+    }
+
+    @Test
+    public void testReportInNameOrder() {
+        Metrics metrics = new Metrics(true);
+        metrics.counter("z").add(3);
+        metrics.histogram("h").record(10);
+        List<String> names = new ArrayList<>();
+        List<Long> values = new ArrayList<>();
+        metrics.report((name, value) -> {
+            names.add(name);
+            values.add(value);
+        });
+        assertEquals(Arrays.asList("h.count", "h.maxNanos", "h.meanNanos", "h.p50Nanos", "h.p99Nanos", "z"), names);
+        assertEquals(Arrays.asList(1L, 10L, 10L, 10L, 10L, 3L), values);
+    }
+
+    @Test
+    public void testResetAndEnable() {
+        Metrics metrics = new Metrics(false);
+        assertFalse(metrics.enabled());
+        metrics.setEnabled(true);
+        assertTrue(metrics.isEnabled());
+        metrics.counter("a").increment();
+        metrics.reset();
+        assertEquals(0L, (long) metrics.getValues().get("a"));
+    }
+
+    @Test
+    public void testRegisterWithJmx() throws JMException {
+        Metrics metrics = new Metrics(true);
+        metrics.counter("calls").add(7);
+        ObjectName name = metrics.register("MetricsTest");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(Boolean.TRUE, server.getAttribute(name, "Enabled"));
+            assertNotNull(server.getAttribute(name, "Values"));
+            server.invoke(name, "reset", new Object[0], new String[0]);
+            assertEquals(0L, (long) metrics.getValues().get("calls"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testAllocatedBytes() {
+        long before = Metrics.allocatedBytes();
+        byte[][] garbage = new byte[16][];
+        for (int i = 0; i < garbage.length; i++) garbage[i] = new byte[1 << 16];
+        long after = Metrics.allocatedBytes();
+        assertTrue(before == -1 ? after == -1 : after - before >= 1 << 20);
+    }
+}
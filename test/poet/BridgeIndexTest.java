@@ -0,0 +1,171 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+import graph.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BridgeIndexTest {
+
+    // Testing strategy
+    //   bridge(): no path, one candidate, several candidates with different scores
+    //   bridge(): word1 not a vertex, word1 with no edges out; neither caches a row
+    //   setAll(), mergeWeights(): a batch that fails partway still drops the rows it changed
+    //   rows: lazy, eager, then edited with set() to a new weight, set() to 0, remove(), removeAll()
+    //   compared against a direct two-hop search over the same graph
+
+    // Best total, then heavier first hop, then first visited.
+    private static String expectedBridge(Graph<String> graph, String word1, String word2) {
+        String bridge = null;
+        long maxWeight = 0;
+        int maxFirst = 0;
+        List<String> candidates = new ArrayList<>();
+        graph.forEachTarget(word1, (candidate, weight) -> candidates.add(candidate));
+        for (String candidate : candidates) {
+            int first = graph.weight(word1, candidate);
+            int second = graph.weight(candidate, word2);
+            if (second > 0 && (first + second > maxWeight || (first + second == maxWeight && first > maxFirst))) {
+                maxWeight = first + second;
+                maxFirst = first;
+                bridge = candidate;
+            }
+        }
+        return bridge;
+    }
+
+    private static void assertMatchesSearch(BridgeIndex<String> index, int words) {
+        for (int i = 0; i < words; i++) {
+            for (int j = 0; j < words; j++) {
+                String word1 = "w" + i;
+                String word2 = "w" + j;
+                assertEquals(word1 + " -> " + word2, expectedBridge(index, word1, word2), index.bridge(word1, word2));
+            }
+        }
+    }
+
+    @Test
+    public void testPicksHighestScoringBridge() {
+        BridgeIndex<String> index = new BridgeIndex<>(new ConcreteEdgesGraph<>());
+        index.set("a", "x", 1);
+        index.set("x", "b", 1);
+        index.set("a", "y", 2);
+        index.set("y", "b", 3);
+        assertEquals("y", index.bridge("a", "b"));
+        assertNull(index.bridge("b", "a"));
+        assertNull(index.bridge("missing", "b"));
+    }
+
+    @Test
+    public void testNoRowForWordsWithoutEdgesOut() {
+        BridgeIndex<String> index = new BridgeIndex<>(new ConcreteEdgesGraph<>());
+        index.set("a", "x", 1);
+        index.set("x", "b", 1);
+        for (int i = 0; i < 100; i++) {
+            assertNull(index.bridge("missing" + i, "b"));
+        }
+        assertNull(index.bridge("b", "a"));
+        assertEquals(0, index.cachedRows());
+
+        index.buildAll();
+        assertEquals(2, index.cachedRows());
+        assertEquals("x", index.bridge("a", "b"));
+    }
+
+    @Test
+    public void testEditsInvalidateRows() {
+        BridgeIndex<String> index = new BridgeIndex<>(new ConcreteEdgesGraph<>());
+        index.set("a", "x", 1);
+        index.set("x", "b", 1);
+        assertEquals("x", index.bridge("a", "b"));
+
+        index.set("a", "y", 1);
+        index.set("y", "b", 5);
+        assertEquals("y", index.bridge("a", "b"));
+
+        index.set("y", "b", 0);
+        assertEquals("x", index.bridge("a", "b"));
+
+        index.remove("x");
+        assertNull(index.bridge("a", "b"));
+
+        index.set("a", "x", 1);
+        index.set("x", "b", 1);
+        index.set("a", "y", 2);
+        index.set("y", "b", 2);
+        assertEquals("y", index.bridge("a", "b"));
+        assertTrue(index.removeAll(Arrays.asList("y", "missing")));
+        assertEquals("x", index.bridge("a", "b"));
+        assertFalse(index.removeAll(Arrays.asList("y", "missing")));
+    }
+
+    @Test
+    public void testFailedBatchStillInvalidates() {
+        BridgeIndex<String> index = new BridgeIndex<>(new ConcreteEdgesGraph<>());
+        index.set("a", "x", 1);
+        index.set("x", "b", 1);
+        index.set("a", "y", 1);
+        index.set("y", "b", 1);
+        assertEquals("x", index.bridge("a", "b"));
+
+        Map<Pair<String>, Integer> weights = new LinkedHashMap<>();
+        weights.put(new Pair<>("y", "b"), 5);
+        weights.put(new Pair<>("y", "c"), null);
+        try {
+            index.setAll(weights);
+            fail("expected a null weight to be rejected");
+        } catch (NullPointerException e) {
+            // the first edge was set before the second failed
+        }
+        assertEquals(5, index.weight("y", "b"));
+        assertEquals("y", index.bridge("a", "b"));
+
+        Map<Pair<String>, Integer> deltas = new LinkedHashMap<>();
+        deltas.put(new Pair<>("x", "b"), 10);
+        deltas.put(new Pair<>("x", "c"), -1);
+        try {
+            index.mergeWeights(deltas);
+            fail("expected a negative weight to be rejected");
+        } catch (IllegalArgumentException e) {
+            // the first delta was added before the second failed
+        }
+        assertEquals(11, index.weight("x", "b"));
+        assertEquals("x", index.bridge("a", "b"));
+    }
+
+    @Test
+    public void testRandomEditsMatchSearch() {
+        int words = 12;
+        Random random = new Random(7);
+        BridgeIndex<String> index = new BridgeIndex<>(new ConcreteEdgesGraph<>());
+        for (int i = 0; i < 60; i++) {
+            index.set("w" + random.nextInt(words), "w" + random.nextInt(words), 1 + random.nextInt(4));
+        }
+        index.buildAll();
+        assertMatchesSearch(index, words);
+
+        for (int round = 0; round < 40; round++) {
+            String word = "w" + random.nextInt(words);
+            switch (random.nextInt(3)) {
+            case 0:
+                index.remove(word);
+                break;
+            case 1:
+                index.set(word, "w" + random.nextInt(words), 0);
+                break;
+            default:
+                index.set(word, "w" + random.nextInt(words), 1 + random.nextInt(6));
+            }
+            assertMatchesSearch(index, words);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class CorpusTokenizerTest {
+
+    // Testing strategy
+    //   chunk size: smaller than a word, larger than the corpus
+    //   words: ASCII, multi-byte UTF-8 cut by a chunk boundary, mixed case
+    //   whitespace: runs, leading/trailing, line breaks, tabs
+    //   source: FileChannel, Reader smaller and larger than the buffer
+    //   punctuation: leading, trailing, inside a word, a token of only punctuation
+    //   interning: a repeated word in any case gives the same instance; without
+    //     interning, the table does not grow and its words keep their instances
+    //   reset(): a reused tokenizer starts the next text with no first or previous word
+
+    private static List<String> bigrams(String text, int chunkSize) throws IOException {
+        Path file = Files.createTempFile("corpus", ".txt");
+        try {
+            Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+            List<String> bigrams = new ArrayList<>();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                new CorpusTokenizer(chunkSize).bigrams(channel, (w1, w2) -> bigrams.add(w1 + " " + w2));
+            }
+            return bigrams;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testWordsCarriedAcrossChunks() throws IOException {
+        List<String> expected = Arrays.asList("this is", "is a", "a test");
+        assertEquals(expected, bigrams("This is a Test", 3));
+        assertEquals(expected, bigrams("This is a Test", 1024));
+    }
+
+    @Test
+    public void testWhitespaceRunsAndLineBreaks() throws IOException {
+        assertEquals(Arrays.asList("a b", "b c", "c d"), bigrams("  a\t\tb\r\nc\n\n d  \n", 2));
+    }
+
+    @Test
+    public void testMultiByteWordSplitByChunk() throws IOException {
+        assertEquals(Arrays.asList("na\u00efve caf\u00e9", "caf\u00e9 \u00fcber"),
+                bigrams("Na\u00efve Caf\u00e9 \u00dcBER", 3));
+    }
+
+    @Test
+    public void testSingleWordAndEmptyCorpus() throws IOException {
+        assertEquals(Arrays.asList(), bigrams("alone", 2));
+        assertEquals(Arrays.asList(), bigrams("", 2));
+    }
+
+    @Test
+    public void testMatchesLineSplitting() throws IOException {
+        File corpus = new File("src/poet/mugar-omni-theater.txt");
+        List<String> words = new ArrayList<>();
+        for (String token : String.join(" ", Files.readAllLines(corpus.toPath())).split("\\s+")) {
+            String word = token.replaceAll("^[^\\p{L}\\p{Nd}]+|[^\\p{L}\\p{Nd}]+$", "").toLowerCase(Locale.ROOT);
+            if (!word.isEmpty()) words.add(word);
+        }
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < words.size() - 1; i++) {
+            expected.add(words.get(i) + " " + words.get(i + 1));
+        }
+        assertEquals(expected, bigrams(new String(Files.readAllBytes(corpus.toPath()), StandardCharsets.UTF_8), 5));
+    }
+
+    @Test
+    public void testReaderMatchesChannel() throws IOException {
+        String text = "  Na\u00efve\tCaf\u00e9 \u00dcBER\r\nthis is a Test  ";
+        for (int chunkSize : new int[] { 2, 1024 }) {
+            List<String> bigrams = new ArrayList<>();
+            CorpusTokenizer tokenizer = new CorpusTokenizer(chunkSize);
+            tokenizer.bigrams(new StringReader(text), (w1, w2) -> bigrams.add(w1 + " " + w2));
+            assertEquals(bigrams(text, chunkSize), bigrams);
+            assertEquals("na\u00efve", tokenizer.first());
+            assertEquals("test", tokenizer.previous());
+        }
+    }
+
+    @Test
+    public void testPunctuationIsStripped() throws IOException {
+        assertEquals(Arrays.asList("hello world", "world don't", "don't stop"),
+                bigrams("\"Hello, -- World!\" (don't) stop...", 4));
+    }
+
+    @Test
+    public void testRepeatedWordsAreInterned() throws IOException {
+        List<String> words = new ArrayList<>();
+        new CorpusTokenizer(3).bigrams(new StringReader("Love is LOVE, love"), (w1, w2) -> words.add(w2));
+        assertSame(words.get(1), words.get(2));
+    }
+
+    @Test
+    public void testResetForgetsEarlierWords() throws IOException {
+        CorpusTokenizer tokenizer = new CorpusTokenizer(4);
+        List<String> bigrams = new ArrayList<>();
+        tokenizer.bigrams(new StringReader("one two three"), (w1, w2) -> bigrams.add(w1 + " " + w2));
+        tokenizer.reset();
+        assertNull(tokenizer.first());
+        assertNull(tokenizer.previous());
+
+        tokenizer.bigrams(new StringReader("Four five"), (w1, w2) -> bigrams.add(w1 + " " + w2));
+        assertEquals(Arrays.asList("one two", "two three", "four five"), bigrams);
+        assertEquals("four", tokenizer.first());
+        assertEquals("five", tokenizer.previous());
+    }
+
+    @Test
+    public void testLookupOnlyLeavesTableUnchanged() throws IOException {
+        WordTable words = new WordTable();
+        String known = words.intern("known", 0, 5);
+        CorpusTokenizer tokenizer = new CorpusTokenizer(words, false);
+        List<String> seen = new ArrayList<>();
+        tokenizer.bigrams(new StringReader("Known new, KNOWN! new"), (w1, w2) -> {
+            if (seen.isEmpty()) seen.add(w1);
+            seen.add(w2);
+        });
+        assertEquals(Arrays.asList("known", "new", "known", "new"), seen);
+        assertSame(known, seen.get(0));
+        assertSame(known, seen.get(2));
+        assertEquals("New words should not be interned", 1, words.size());
+    }
+}
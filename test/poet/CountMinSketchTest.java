@@ -0,0 +1,72 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CountMinSketchTest {
+
+    // Testing strategy
+    //   constructor: dimensions from epsilon and delta; epsilon or delta out of (0, 1)
+    //   add(): count 0, count > 1, negative count
+    //   estimate(): key never added, skewed stream of many keys checked
+    //     against exact counts and errorBound()
+
+    @Test
+    public void testDimensions() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        assertEquals("Width should be e / epsilon rounded up to a power of two", 512, sketch.width());
+        assertEquals("Depth should be ln(1 / delta) rounded up", 5, sketch.depth());
+        assertEquals(4L * 512 * 5, sketch.bytes());
+    }
+
+    @Test
+    public void testCountsAddUp() {
+        CountMinSketch sketch = new CountMinSketch(0.01, 0.01);
+        assertEquals(0, sketch.estimate(42));
+        sketch.add(42, 3);
+        sketch.add(42, 0);
+        sketch.add(7, 1);
+        assertEquals(3, sketch.estimate(42));
+        assertEquals(1, sketch.estimate(7));
+        assertEquals(4, sketch.total());
+    }
+
+    @Test
+    public void testEstimatesWithinBound() {
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01);
+        Map<Long, Integer> exact = new HashMap<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 200000; i++) {
+            long key = (long) Math.abs(random.nextGaussian() * 5000);
+            sketch.add(key, 1);
+            exact.merge(key, 1, Integer::sum);
+        }
+        int beyondBound = 0;
+        for (Map.Entry<Long, Integer> key : exact.entrySet()) {
+            int estimate = sketch.estimate(key.getKey());
+            assertTrue("Estimates should never be low", estimate >= key.getValue());
+            if (estimate > key.getValue() + sketch.errorBound()) beyondBound++;
+        }
+        assertTrue("Few estimates should exceed the error bound", beyondBound <= exact.size() / 50);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEpsilonOutOfRange() {
+        new CountMinSketch(1, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDeltaOutOfRange() {
+        new CountMinSketch(0.01, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCount() {
+        new CountMinSketch(0.01, 0.01).add(1, -1);
+    }
+}
@@ -1,9 +1,19 @@
 package poet;
 
+import graph.ConcreteVerticesGraph;
+import graph.Graph;
 import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -23,7 +33,7 @@ public class GraphPoetTest {
     // Correct handling of input files for graph construction
     @Test
     public void testSimpleCorpus() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/simple.txt");
+        File corpus = new File("test/poet/simple.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "Life is beautiful.";
         String expected = "Life is very beautiful."; // Assuming "very" is the bridge word
@@ -33,7 +43,7 @@ public class GraphPoetTest {
     // Correct generation of poems with and without bridge words
     @Test
     public void testBridgeWordsInMiddle() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/bridgewords.txt");
+        File corpus = new File("test/poet/bridgewords.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "To be or not to be.";
         String expected = "To be or maybe not to be."; // Assuming "maybe" is the bridge word
@@ -42,7 +52,7 @@ public class GraphPoetTest {
 
     @Test
     public void testNoBridge() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/nobridge.txt");
+        File corpus = new File("test/poet/nobridge.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "There is no bridge.";
         assertEquals("Poem should match input when no bridge words exist", input, poet.poem(input));
@@ -51,7 +61,7 @@ public class GraphPoetTest {
     // Proper validation for edge cases
     @Test
     public void testEmptyInput() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/simple.txt");
+        File corpus = new File("test/poet/simple.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "";
         assertEquals("Empty input should return empty output", "", poet.poem(input));
@@ -60,7 +70,7 @@ public class GraphPoetTest {
     // Ensure case insensitivity in graph creation and poem generation
     @Test
     public void testCaseInsensitiviteCorpus() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/caseinsensitive.txt");
+        File corpus = new File("test/poet/caseinsensitive.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "It is a Test.";
         String expected = "It is a great Test."; // Assuming "great" is the bridge word, ignoring case
@@ -70,7 +80,7 @@ public class GraphPoetTest {
     // Special characters handling
     @Test
     public void testSpecialCharacters() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/specialchars.txt");
+        File corpus = new File("test/poet/specialchars.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "Hello, world!";
         String expected = "Hello, beautiful world!"; // Assuming "beautiful" is the bridge word
@@ -80,7 +90,7 @@ public class GraphPoetTest {
     // Punctuation in corpus handling
     @Test
     public void testPunctuationCorpus() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/punctuation.txt");
+        File corpus = new File("test/poet/punctuation.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "Time flies.";
         String expected = "Time truly flies."; // Assuming "truly" is the bridge word
@@ -90,7 +100,7 @@ public class GraphPoetTest {
     // Handling repeated words in the corpus
     @Test
     public void testRepeatedWordsCorpus() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/repeated.txt");
+        File corpus = new File("test/poet/repeated.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "Love is love.";
         String expected = "Love is eternal love."; // Assuming "eternal" is the bridge word
@@ -100,9 +110,252 @@ public class GraphPoetTest {
     // Empty corpus handling
     @Test
     public void testEmptyCorpus() throws IOException {
-        File corpus = new File("C:/Users/Jawer/OneDrive - National University of Sciences & Technology/Desktop/ps2/test/empty.txt");
+        File corpus = new File("test/poet/empty.txt");
         GraphPoet poet = new GraphPoet(corpus);
         String input = "Nothing to add.";
         assertEquals("Empty corpus should produce no modifications", input, poet.poem(input));
     }
+
+    // Choice of Graph backend
+    @Test
+    public void testConcreteVerticesGraphBackend() throws IOException {
+        File corpus = new File("test/poet/bridgewords.txt");
+        GraphPoet poet = new GraphPoet(corpus, new ConcreteVerticesGraph<>());
+        String input = "To be or not to be.";
+        String expected = "To be or maybe not to be.";
+        assertEquals("Poem should not depend on the Graph backend", expected, poet.poem(input));
+    }
+
+    // Parallel build
+    @Test
+    public void testParallelBuild() throws IOException {
+        File corpus = new File("test/poet/bridgewords.txt");
+        GraphPoet poet = new GraphPoet(corpus, Graph.empty(), 4);
+        String input = "To be or not to be.";
+        String expected = "To be or maybe not to be.";
+        assertEquals("Parallel build should give the same poem", expected, poet.poem(input));
+    }
+
+    // Bridge index
+    @Test
+    public void testBridgeIndex() throws IOException {
+        File corpus = new File("test/poet/bridgewords.txt");
+        GraphPoet lazy = new GraphPoet(corpus);
+        lazy.useBridgeIndex(false);
+        GraphPoet eager = new GraphPoet(corpus);
+        eager.useBridgeIndex(true);
+        String input = "To be or not to be.";
+        String expected = "To be or maybe not to be.";
+        assertEquals("Lazy index should find the same bridges", expected, lazy.poem(input));
+        assertEquals("Eager index should find the same bridges", expected, eager.poem(input));
+    }
+
+    // Binary snapshot
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/bridgewords.txt"));
+        Path snapshot = Files.createTempFile("poet", ".snapshot");
+        try {
+            poet.save(snapshot);
+            GraphPoet loaded = GraphPoet.load(snapshot);
+            String input = "To be or not to be.";
+            assertEquals("Loaded poet should write the same poem", poet.poem(input), loaded.poem(input));
+            loaded.useBridgeIndex(true);
+            assertEquals("Bridge index should work over a loaded poet", poet.poem(input), loaded.poem(input));
+        } finally {
+            Files.delete(snapshot);
+        }
+    }
+
+    // Incremental append
+    @Test
+    public void testAppend() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/nobridge.txt"));
+        poet.useBridgeIndex(true);
+        String input = "There is no bridge.";
+        assertEquals(input, poet.poem(input));
+
+        poet.append(new StringReader("no wooden bridge."), false);
+        assertEquals("Appended bigrams should be used at once", "There is no wooden bridge.", poet.poem(input));
+        poet.append(new StringReader("there"), false);
+        poet.append(new StringReader("it is"), true);
+        assertEquals("Join should link the last word to the new text", "there it is", poet.poem("there is"));
+        assertEquals("Without join, no bigram links the texts", "bridge. it", poet.poem("bridge. it"));
+    }
+
+    @Test
+    public void testAppendAfterLoad() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/nobridge.txt"));
+        Path snapshot = Files.createTempFile("poet", ".snapshot");
+        try {
+            poet.save(snapshot);
+            GraphPoet loaded = GraphPoet.load(snapshot);
+            loaded.append(new StringReader("no wooden bridge."), true);
+            assertEquals("There is no wooden bridge.", loaded.poem("There is no bridge."));
+        } finally {
+            Files.delete(snapshot);
+        }
+    }
+
+    // Batch poems
+    @Test
+    public void testPoemsKeepInputOrder() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/bridgewords.txt"));
+        List<String> inputs = new ArrayList<>();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String input = i % 2 == 0 ? "To be or not to be. " + i : i + " or not";
+            inputs.add(input);
+            expected.add(poet.poem(input));
+        }
+        assertEquals("Batch should match one-at-a-time poems in order", expected, poet.poems(inputs, 4));
+        assertEquals(expected, poet.poems(inputs, 1));
+        assertTrue(poet.poems(new ArrayList<>(), 2).isEmpty());
+    }
+
+    // Metrics
+    @Test
+    public void testMetrics() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/simple.txt"));
+        poet.poem("Life is beautiful.");
+        assertEquals("Nothing is recorded while disabled", 0L, (long) poet.metrics().getValues().get("poet.poem.count"));
+
+        poet.metrics().setEnabled(true);
+        poet.poem("Life is beautiful.");
+        poet.poems(Arrays.asList("life beautiful", "is life"), 2);
+        poet.append(new StringReader("beautiful life"), true);
+        Map<String, Long> values = poet.metrics().getValues();
+        assertEquals(3L, (long) values.get("poet.poem.count"));
+        assertEquals("One lookup per adjacent pair", 4L, (long) values.get("poet.bridge.lookups"));
+        assertEquals("Only is-beautiful has a bridge", 1L, (long) values.get("poet.bridge.hits"));
+        assertEquals("One bigram in the text, one joining it", 2L, (long) values.get("poet.bigrams"));
+        assertEquals(1L, (long) values.get("poet.append.count"));
+        assertTrue(values.get("poet.poem.maxNanos") > 0);
+    }
+
+    // Caches
+    @Test
+    public void testCachesAnswerRepeatsAndClearOnAppend() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/nobridge.txt"));
+        poet.cacheBridges(100);
+        poet.cachePoems(1000);
+        String input = "There is no bridge.";
+        assertEquals(input, poet.poem(input));
+        assertEquals(input, poet.poem(input));
+        assertEquals("A repeated poem should come from the cache", 1L, poet.poemCacheStats().hits());
+        assertEquals("Pairs without a bridge are cached too", 3L, poet.bridgeCacheStats().size());
+
+        assertEquals(input + " " + input, poet.poem(input + " " + input));
+        assertEquals("Repeated pairs should come from the cache", 6L, poet.bridgeCacheStats().hits());
+
+        poet.append(new StringReader("no wooden bridge."), false);
+        assertEquals("Appending should clear both caches", 0L, poet.bridgeCacheStats().size());
+        assertEquals("There is no wooden bridge.", poet.poem(input));
+        assertEquals(poet.poems(Arrays.asList(input, input), 2), Arrays.asList(poet.poem(input), poet.poem(input)));
+
+        poet.cachePoems(0);
+        assertEquals("A cache that is off has no statistics", 0L, poet.poemCacheStats().hits());
+    }
+
+    @Test
+    public void testCachesResetAfterDirectGraphChange() throws IOException {
+        Graph<String> graph = Graph.empty();
+        GraphPoet poet = new GraphPoet(new File("test/poet/simple.txt"), graph);
+        poet.cacheBridges(100);
+        poet.cachePoems(1000);
+        assertEquals("Life is very beautiful.", poet.poem("Life is beautiful."));
+
+        graph.set("is", "truly", 5);
+        graph.set("truly", "beautiful", 5);
+        assertEquals("Direct changes are not seen by the caches",
+                "Life is very beautiful.", poet.poem("Life is beautiful."));
+        poet.cacheBridges(100);
+        poet.cachePoems(1000);
+        assertEquals("Life is truly beautiful.", poet.poem("Life is beautiful."));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCacheSize() throws IOException {
+        new GraphPoet(new File("test/poet/nobridge.txt")).cacheBridges(-1);
+    }
+
+    // Approximate mode
+    @Test
+    public void testApproximateModePromotesHeavyBigrams() throws IOException {
+        BigramSketch sketch = new BigramSketch(0.01, 0.01, 3, 100);
+        GraphPoet poet = new GraphPoet(new File("test/poet/simple.txt"), sketch);
+        assertEquals("No bigram is frequent enough to be an edge yet", 0, sketch.promoted());
+        assertEquals("Bridges need one hop to be an edge", "is beautiful", poet.poem("is beautiful"));
+
+        poet.append(new StringReader("is very is very beautiful life is"), false);
+        assertEquals("Only is-very should be promoted", 1, sketch.promoted());
+        assertEquals(9, sketch.bigrams());
+        assertEquals(1, sketch.errorBound());
+        assertEquals(3, sketch.estimate("is", "very"));
+        assertEquals("The second hop may come from the sketch", "is very beautiful", poet.poem("is beautiful"));
+        assertEquals("The first hop may come from the sketch", "life is very", poet.poem("life very"));
+        assertEquals("A hop within the error bound is not trusted", 0, sketch.trustedEstimate("beautiful", "life"));
+        assertEquals("very beautiful", poet.poem("very beautiful"));
+    }
+
+    @Test
+    public void testApproximateModeInventsNoBridgeFromCollisions() throws IOException {
+        // one row of 32 counters, so every counter collects many bigrams
+        BigramSketch sketch = new BigramSketch(0.1, 0.5, 50, 1);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 60; i++) text.append("alpha beta ");
+        Random random = new Random(11);
+        for (int i = 0; i < 5000; i++) text.append('w').append(random.nextInt(100000)).append(' ');
+        GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"), sketch);
+        poet.append(new StringReader(text.toString()), false);
+        assertEquals(1, sketch.promoted());
+        assertTrue("Collisions should inflate the estimate of a pair never seen",
+                sketch.estimate("beta", "zeta") > 0);
+        assertEquals(0, sketch.trustedEstimate("beta", "zeta"));
+        assertEquals("alpha zeta", poet.poem("alpha zeta"));
+    }
+
+    @Test
+    public void testApproximateModeInternsOnlyPromotedWords() throws IOException {
+        BigramSketch sketch = new BigramSketch(0.0001, 0.01, 100, 10);
+        GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"), sketch);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) text.append("rare").append(i % 500).append(" common words ");
+        poet.append(new StringReader(text.toString()), false);
+        assertTrue(sketch.bigrams() > 4000);
+        assertEquals("Only common-words should be promoted", 1, sketch.promoted());
+        assertEquals("Rare words should not be interned", 2, poet.vocabularySize());
+        assertEquals("Rare7 common words", poet.poem("Rare7 words"));
+    }
+
+    @Test
+    public void testSketchSeparatesWordsWithEqualHashCodes() throws IOException {
+        assertEquals("an".hashCode(), "c0".hashCode());
+        BigramSketch sketch = new BigramSketch(0.01, 0.01, 100, 10);
+        GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"), sketch);
+        poet.append(new StringReader("an x an x an x"), false);
+        assertEquals(3, sketch.estimate("an", "x"));
+        assertEquals(0, sketch.estimate("c0", "x"));
+    }
+
+    @Test
+    public void testApproximateModeWithEveryBigramPromoted() throws IOException {
+        File corpus = new File("test/poet/bridgewords.txt");
+        GraphPoet approximate = new GraphPoet(corpus, new BigramSketch(0.001, 0.01, 1, Long.MAX_VALUE));
+        String input = "To be or not to be.";
+        assertEquals(new GraphPoet(corpus).poem(input), approximate.poem(input));
+    }
+
+    @Test
+    public void testApproximateModeRespectsEdgeBudget() throws IOException {
+        BigramSketch sketch = new BigramSketch(0.01, 0.01, 1, 2);
+        new GraphPoet(new File("test/poet/bridgewords.txt"), sketch);
+        assertEquals(2, sketch.promoted());
+        assertTrue(sketch.bigrams() > 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSketchThresholdMustBePositive() {
+        new BigramSketch(0.01, 0.01, 0, 10);
+    }
 }
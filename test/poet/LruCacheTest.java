@@ -0,0 +1,111 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class LruCacheTest {
+
+    // Testing strategy
+    //   get(): hit, miss, hit refreshes recency
+    //   put(): new key, replaced key, eviction of the least recently used,
+    //     entry heavier than the capacity, weighted entries
+    //   clear(): drops entries, keeps statistics
+    //   constructor: capacity < 1
+    //   concurrent readers and writers over many stripes stay within capacity
+
+    @Test
+    public void testHitsAndMisses() {
+        LruCache<String, Integer> cache = new LruCache<>(10);
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        assertEquals(1, (int) cache.get("a"));
+        cache.put("a", 2);
+        assertEquals("put() should replace the value", 2, (int) cache.get("a"));
+        LruCache.Stats stats = cache.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.size());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+        assertNull("b was used least recently", cache.get("b"));
+        assertEquals(1, (int) cache.get("a"));
+        assertEquals(3, (int) cache.get("c"));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    public void testWeightedEntries() {
+        LruCache<String, String> cache = new LruCache<>(10, (key, value) -> value.length());
+        cache.put("a", "12345");
+        cache.put("b", "1234");
+        assertEquals(9, cache.weight());
+        cache.put("c", "12");
+        assertNull("a should make room for c", cache.get("a"));
+        assertEquals(6, cache.weight());
+        cache.put("d", "12345678901");
+        assertNull("An entry heavier than the cache is not kept", cache.get("d"));
+        assertEquals(6, cache.weight());
+    }
+
+    @Test
+    public void testClearKeepsStats() {
+        LruCache<String, Integer> cache = new LruCache<>(10);
+        cache.put("a", 1);
+        cache.get("a");
+        cache.clear();
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+        assertEquals(1, cache.stats().hits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new LruCache<String, Integer>(0);
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        LruCache<Integer, Integer> cache = new LruCache<>(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> done = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int seed = t;
+                done.add(pool.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 4096;
+                        Integer value = cache.get(key);
+                        if (value == null) {
+                            cache.put(key, key * 2);
+                        } else {
+                            assertEquals(key * 2, (int) value);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : done) {
+                future.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue("Cache should stay within its capacity", cache.size() <= 1024);
+        assertEquals(80000, cache.stats().hits() + cache.stats().misses());
+    }
+}
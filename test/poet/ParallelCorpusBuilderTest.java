@@ -0,0 +1,93 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import graph.ConcreteEdgesGraph;
+import graph.Graph;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ParallelCorpusBuilderTest {
+
+    // Testing strategy
+    //   shard size: 1 byte, shorter than most words, larger than the corpus
+    //   parallelism: 1, several
+    //   corpus: empty, one word, random multi-line text with multi-byte words
+
+    private static Graph<String> sequential(Path corpus) throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph<>();
+        try (FileChannel channel = FileChannel.open(corpus, StandardOpenOption.READ)) {
+            new CorpusTokenizer().bigrams(channel, (w1, w2) -> {
+                int weight = graph.targets(w1).getOrDefault(w2, 0);
+                graph.set(w1, w2, weight + 1);
+            });
+        }
+        return graph;
+    }
+
+    private static Graph<String> parallel(Path corpus, int parallelism, long shardSize) throws IOException {
+        Graph<String> graph = new ConcreteEdgesGraph<>();
+        new ParallelCorpusBuilder(parallelism, shardSize).build(corpus, graph);
+        return graph;
+    }
+
+    private static void assertSameGraph(Graph<String> expected, Graph<String> actual) {
+        assertEquals(expected.vertices(), actual.vertices());
+        for (String vertex : expected.vertices()) {
+            assertEquals("targets of " + vertex, expected.targets(vertex), actual.targets(vertex));
+        }
+    }
+
+    private static Path corpus(String text) throws IOException {
+        Path file = Files.createTempFile("corpus", ".txt");
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    @Test
+    public void testMatchesSequentialBuild() throws IOException {
+        String[] vocabulary = { "the", "cat", "sat", "on", "mat", "über", "café", "A", "The" };
+        String[] separators = { " ", "  ", "\n", "\r\n", "\t" };
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            text.append(vocabulary[random.nextInt(vocabulary.length)]);
+            text.append(separators[random.nextInt(separators.length)]);
+        }
+        Path file = corpus(text.toString());
+        try {
+            Graph<String> expected = sequential(file);
+            for (long shardSize : new long[] { 1, 3, 64, 1 << 20 }) {
+                assertSameGraph(expected, parallel(file, 1, shardSize));
+                assertSameGraph(expected, parallel(file, 4, shardSize));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEmptyAndSingleWordCorpus() throws IOException {
+        for (String text : new String[] { "", "   ", "alone", " alone \n" }) {
+            Path file = corpus(text);
+            try {
+                assertTrue(parallel(file, 3, 1).vertices().isEmpty());
+            } finally {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelismMustBePositive() {
+        new ParallelCorpusBuilder(0);
+    }
+}
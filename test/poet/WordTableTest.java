@@ -0,0 +1,56 @@
+package poet;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class WordTableTest {
+
+    // Testing strategy
+    //   window: whole string, part of a longer string, punctuation at either end,
+    //     only punctuation, empty, non-ASCII letters, digits
+    //   case: lower, upper, mixed
+    //   table: empty, growing past its initial capacity, key present and absent
+
+    @Test
+    public void testLookupBeforeAndAfterIntern() {
+        WordTable table = new WordTable();
+        assertNull(table.lookup("world", 0, 5));
+        String key = table.intern("World!", 0, 6);
+        assertEquals("world", key);
+        assertSame(key, table.lookup("(WORLD)", 0, 7));
+        assertSame(key, table.lookup("hello, world.", 7, 13));
+        assertSame(key, table.intern("world", 0, 5));
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    public void testWindowsWithoutKey() {
+        WordTable table = new WordTable();
+        assertNull(table.intern("--", 0, 2));
+        assertNull(table.intern("abc", 1, 1));
+        assertNull(WordTable.key("...", 0, 3));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testNonAsciiAndDigits() {
+        WordTable table = new WordTable();
+        assertEquals("\u00fcber", table.intern("\u00dcBER", 0, 4));
+        assertEquals("route66", table.intern("Route66!", 0, 8));
+        assertEquals("don't", WordTable.key("\"Don't\"", 0, 7));
+    }
+
+    @Test
+    public void testGrowKeepsEveryKey() {
+        WordTable table = new WordTable();
+        for (int i = 0; i < 10000; i++) {
+            table.intern("Word" + i, 0, ("Word" + i).length());
+        }
+        assertEquals(10000, table.size());
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("word" + i, table.lookup("WORD" + i, 0, ("WORD" + i).length()));
+        }
+        assertNull(table.lookup("word10000", 0, 9));
+    }
+}